@@ -0,0 +1,44 @@
+package com.example.filter;
+
+import com.example.utils.TokenUtility;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through JWTFilter, request and response objects included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTFilterBenchmark {
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    private JWTFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        TokenUtility tokenUtility = new TokenUtility(tokenCache, 10_000);
+        filter = new JWTFilter(tokenUtility);
+        authorization = "Bearer " + tokenUtility.createToken(7L, "USER");
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cartApi/getAllCartItems");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return request.getAttribute("userId");
+    }
+}
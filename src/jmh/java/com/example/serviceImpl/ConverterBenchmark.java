@@ -0,0 +1,62 @@
+package com.example.serviceImpl;
+
+import com.example.dto.BookEntityToDto;
+import com.example.dto.CartEntityToDto;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion on the book and cart read paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+    private BookServiceImpl bookService;
+    private CartServiceImpl cartService;
+    private Book book;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookServiceImpl(null, null, null, null);
+        cartService = new CartServiceImpl();
+
+        book = new Book();
+        book.setBookId(42L);
+        book.setBookName("Clean Code");
+        book.setBookAuthor("Robert C. Martin");
+        book.setBookDescription("A Handbook of Agile Software Craftsmanship");
+        book.setBookLogoMultipart("clean-code.png");
+        book.setBookPrice(499.0);
+        book.setBookQuantity(20);
+
+        User user = new User();
+        user.setUserId(7L);
+        user.setEmail("reader@example.com");
+
+        cart = new Cart();
+        cart.setCartId(3L);
+        cart.setUser(user);
+        cart.setBook(book);
+        cart.setCartQuantity(2);
+        cart.setTotalPrice(998.0);
+    }
+
+    @Benchmark
+    public BookEntityToDto bookToDto() {
+        return bookService.bookToDtoConverter(book);
+    }
+
+    @Benchmark
+    public CartEntityToDto cartToDto() {
+        return cartService.cartToDtoConverter(cart);
+    }
+}
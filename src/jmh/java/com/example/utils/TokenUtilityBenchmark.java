@@ -0,0 +1,42 @@
+package com.example.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token signing and verification, with and without the verified-token cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenUtilityBenchmark {
+    private TokenUtility cachedTokenUtility;
+    private TokenUtility uncachedTokenUtility;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedTokenUtility = new TokenUtility(true, 10_000);
+        uncachedTokenUtility = new TokenUtility(false, 0);
+        token = uncachedTokenUtility.createToken(7L, "USER");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return uncachedTokenUtility.createToken(7L, "USER");
+    }
+
+    @Benchmark
+    public Long decodeToken_uncached() {
+        return uncachedTokenUtility.decodeToken(token);
+    }
+
+    @Benchmark
+    public Long decodeToken_cached() {
+        return cachedTokenUtility.decodeToken(token);
+    }
+}
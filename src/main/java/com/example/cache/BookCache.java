@@ -0,0 +1,122 @@
+package com.example.cache;
+
+/**
+ * BookCache.java
+ * Bounded read-through cache of books keyed by book ID.
+ * Every lookup of a book by ID (product page, cart and order paths) goes through here,
+ * and every write to a book must evict its entry so readers never see a stale price or quantity.
+ */
+
+import com.example.dto.BookEntityToDto;
+import com.example.entity.Book;
+import com.example.repo.BookRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class BookCache {
+    private final BookRepo bookRepo;
+    private final Cache<Long, BookEntityToDto> cache;
+
+    public BookCache(BookRepo bookRepo,
+                     @Value("${bookstore.book-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${bookstore.book-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.bookRepo = bookRepo;
+        // Caffeine evicts with Window TinyLFU once the size bound is reached
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the book with the given ID, loading it from the database on a miss.
+     * Missing books are not cached.
+     *
+     * @param bookId the ID of the book
+     * @return the book, or empty if no book has this ID
+     */
+    public Optional<BookEntityToDto> getBook(Long bookId) {
+        return Optional.ofNullable(cache.get(bookId, id -> bookRepo.findById(id).map(BookCache::toDto).orElse(null)));
+    }
+
+    /**
+     * Returns the books with the given IDs, loading every miss with a single query.
+     * IDs that do not exist are left out of the result.
+     *
+     * @param bookIds the IDs of the books
+     * @return the found books keyed by ID
+     */
+    public Map<Long, BookEntityToDto> getBooks(Collection<Long> bookIds) {
+        return cache.getAll(bookIds, missing -> {
+            Map<Long, BookEntityToDto> loaded = new HashMap<>();
+            bookRepo.findAllById(new ArrayList<Long>(missing)).forEach(book -> loaded.put(book.getBookId(), toDto(book)));
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops the cached copy of a book after it has been added, changed or deleted.
+     *
+     * @param bookId the ID of the book
+     */
+    public void evict(Long bookId) {
+        if (bookId != null) {
+            cache.invalidate(bookId);
+        }
+    }
+
+    /**
+     * Drops the cached copies of books changed by the current transaction once it commits,
+     * so a concurrent reader cannot cache the old row again before the change is visible.
+     * Outside a transaction the entries are dropped straight away.
+     *
+     * @param bookIds the IDs of the changed books
+     */
+    public void evictAfterCommit(Collection<Long> bookIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(bookIds);
+            return;
+        }
+        List<Long> changed = new ArrayList<>(bookIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(changed);
+            }
+        });
+    }
+
+    /**
+     * Hit, miss and eviction counters plus the current size, for the admin stats endpoint.
+     */
+    public Map<String, Long> statsSnapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", cache.estimatedSize());
+        snapshot.put("hits", stats.hitCount());
+        snapshot.put("misses", stats.missCount());
+        snapshot.put("evictions", stats.evictionCount());
+        return snapshot;
+    }
+
+    private static BookEntityToDto toDto(Book book) {
+        return new BookEntityToDto(book.getBookId(), book.getBookName(), book.getBookAuthor(), book.getBookDescription(),
+                book.getBookLogoMultipart(), book.getBookPrice(), book.getBookQuantity());
+    }
+}
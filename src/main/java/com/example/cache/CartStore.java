@@ -0,0 +1,469 @@
+package com.example.cache;
+
+/**
+ * CartStore.java
+ * Optional write-behind store for cart quantities, off unless bookstore.cart-store.enabled=true.
+ * Each active user's cart is held in memory as primitive maps (bookId -> quantity, cartId -> bookId),
+ * spread over lock-striped shards. Quantity changes only touch memory; a scheduled flush writes every
+ * changed line to CART_TBL in one JDBC batch, so a crash loses at most one flush interval of clicks.
+ * A cart is loaded from the database the first time it is touched and dropped again once idle.
+ * Creating and deleting lines still goes to the database straight away, which keeps cart IDs real.
+ * Assumes a single application instance owns the carts, a second instance would not see unflushed changes.
+ */
+
+import com.example.dto.BookEntityToDto;
+import com.example.dto.CartLineDto;
+import com.example.entity.Cart;
+import com.example.repo.CartRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+@Component
+public class CartStore {
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+    private static final String UPDATE_LINE =
+            "update CART_TBL set cart_quantity = ?, total_price = ?, version = version + 1 where user_user_id = ? and book_book_id = ?";
+
+    /**
+     * Outcome of a quantity change.
+     */
+    public enum Change {
+        APPLIED,
+        // The new quantity would be below 1 or above the allowed maximum, nothing changed
+        REJECTED,
+        // The user's cart has no such line
+        NO_LINE
+    }
+
+    private final CartRepo cartRepo;
+    private final BookCache bookCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final boolean enabled;
+    private final long idleTimeoutNanos;
+    private final Shard[] shards;
+    private final Queue<UserCart> dirtyCarts = new ConcurrentLinkedQueue<>();
+    // One write at a time, so an older snapshot can never commit after a newer one
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public CartStore(CartRepo cartRepo, BookCache bookCache, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                     @Value("${bookstore.cart-store.enabled:false}") boolean enabled,
+                     @Value("${bookstore.cart-store.shards:16}") int shards,
+                     @Value("${bookstore.cart-store.idle-timeout:30m}") Duration idleTimeout) {
+        this.cartRepo = cartRepo;
+        this.bookCache = bookCache;
+        this.jdbcTemplate = jdbcTemplate;
+        // Flushes commit on their own, also when called from inside an order transaction that may roll back
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.shards = new Shard[Integer.highestOneBit(Math.max(1, shards - 1)) << 1];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds to the user's line for a book.
+     *
+     * @param maxQuantity the highest quantity the line may reach
+     * @param beforeApply called with the new quantity under the cart's lock before it is applied, may throw to veto the change
+     * @return NO_LINE when the book is not in the cart yet, the caller then creates the line with createLine
+     */
+    public Change addToLine(Long userId, Long bookId, int quantity, int maxQuantity, IntConsumer beforeApply) {
+        UserCart cart = lockCart(userId);
+        try {
+            return cart.add(bookId, quantity, maxQuantity, beforeApply);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Creates the user's line for a book through insertLine, or adds to it if another request created it meanwhile.
+     * The insert runs under the cart's lock, so two first adds of the same book cannot both insert.
+     */
+    public Change createLine(Long userId, Long bookId, int quantity, int maxQuantity, IntConsumer beforeApply, Supplier<Cart> insertLine) {
+        UserCart cart = lockCart(userId);
+        try {
+            Change change = cart.add(bookId, quantity, maxQuantity, beforeApply);
+            if (change != Change.NO_LINE) {
+                return change;
+            }
+            beforeApply.accept(quantity);
+            Cart inserted = insertLine.get();
+            cart.bookByCart.put(inserted.getCartId(), bookId);
+            cart.quantities.put(bookId, inserted.getCartQuantity());
+            cart.flushed.put(bookId, inserted.getCartQuantity());
+            return Change.APPLIED;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the book of a line in the user's cart.
+     */
+    public OptionalLong bookIdOf(Long userId, Long cartId) {
+        UserCart cart = lockCart(userId);
+        try {
+            long bookId = cart.bookByCart.get(cartId, 0);
+            return bookId == 0 ? OptionalLong.empty() : OptionalLong.of(bookId);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the quantity of a line by delta. The result must stay at 1 or more, and an increase may not go above maxQuantity.
+     */
+    public Change changeLine(Long userId, Long cartId, int delta, int maxQuantity, IntConsumer beforeApply) {
+        UserCart cart = lockCart(userId);
+        try {
+            long bookId = cart.bookByCart.get(cartId, 0);
+            if (bookId == 0) {
+                return Change.NO_LINE;
+            }
+            return cart.add(bookId, delta, delta > 0 ? maxQuantity : Integer.MAX_VALUE, beforeApply);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * The user's cart lines with their current, possibly not yet flushed, quantities.
+     */
+    public List<CartLineDto> lines(Long userId) {
+        UserCart cart = lockCart(userId);
+        try {
+            List<CartLineDto> lines = new ArrayList<>(cart.bookByCart.size());
+            cart.bookByCart.forEach((cartId, bookId) -> lines.add(new CartLineDto(cartId, bookId, cart.quantities.get(bookId, 0))));
+            return lines;
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets a line that was deleted from the database.
+     */
+    public void removeLine(Long userId, Long cartId) {
+        if (!enabled) {
+            return;
+        }
+        UserCart cart = lockCart(userId);
+        try {
+            long bookId = cart.bookByCart.get(cartId, 0);
+            cart.bookByCart.remove(cartId);
+            cart.quantities.remove(bookId);
+            cart.flushed.remove(bookId);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the user's cart from memory, unflushed changes included. Used when the cart is deleted in the database.
+     */
+    public void evict(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Shard shard = shardFor(userId);
+        UserCart cart;
+        shard.lock.lock();
+        try {
+            cart = shard.carts.remove(userId);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (cart != null) {
+            cart.lock.lock();
+            try {
+                cart.evicted = true;
+                cart.dirty = false;
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops the user's cart now and again once the current transaction completes, so a reload that raced
+     * with the transaction cannot keep lines it has deleted.
+     */
+    public void evictAfterCompletion(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the user's unflushed changes now, in their own transaction. Called before anything reads the cart from the database.
+     */
+    public void flush(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        Shard shard = shardFor(userId);
+        UserCart cart;
+        shard.lock.lock();
+        try {
+            cart = shard.carts.get(userId);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (cart != null) {
+            write(List.of(cart));
+        }
+    }
+
+    /**
+     * Write-behind: coalesces every change since the last run into one batch, then drops idle carts.
+     */
+    @Scheduled(fixedDelayString = "${bookstore.cart-store.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        List<UserCart> carts = new ArrayList<>();
+        for (UserCart cart = dirtyCarts.poll(); cart != null; cart = dirtyCarts.poll()) {
+            carts.add(cart);
+        }
+        write(carts);
+        evictIdle(System.nanoTime());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Carts in memory and carts waiting for the next flush, for tests and diagnostics.
+     */
+    public Map<String, Long> statsSnapshot() {
+        long carts = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                carts += shard.carts.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("carts", carts);
+        snapshot.put("dirty", (long) dirtyCarts.size());
+        return snapshot;
+    }
+
+    private void write(List<UserCart> carts) {
+        writeLock.lock();
+        try {
+            writeLocked(carts);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeLocked(List<UserCart> carts) {
+        List<UserCart> owners = new ArrayList<>();
+        List<long[]> changes = new ArrayList<>();
+        for (UserCart cart : carts) {
+            cart.lock.lock();
+            try {
+                if (!cart.dirty || cart.evicted) {
+                    continue;
+                }
+                cart.dirty = false;
+                cart.quantities.forEach((bookId, quantity) -> {
+                    if (cart.flushed.get(bookId, 0) != quantity) {
+                        cart.flushed.put(bookId, quantity);
+                        owners.add(cart);
+                        changes.add(new long[]{cart.userId, bookId, quantity});
+                    }
+                });
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        Set<Long> bookIds = new HashSet<>();
+        changes.forEach(change -> bookIds.add(change[1]));
+        try {
+            Map<Long, BookEntityToDto> books = bookCache.getBooks(bookIds);
+            List<Object[]> rows = new ArrayList<>(changes.size());
+            for (long[] change : changes) {
+                BookEntityToDto book = books.get(change[1]);
+                double price = book == null ? 0 : book.getBookPrice();
+                rows.add(new Object[]{(int) change[2], change[2] * price, change[0], change[1]});
+            }
+            flushTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_LINE, rows));
+        } catch (RuntimeException e) {
+            log.warn("Cart flush of {} lines failed, will retry on the next run", changes.size(), e);
+            for (int i = 0; i < changes.size(); i++) {
+                UserCart cart = owners.get(i);
+                cart.lock.lock();
+                try {
+                    // Forget what was assumed written, the next diff picks the line up again
+                    cart.flushed.remove(changes.get(i)[1]);
+                    cart.markDirty();
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void evictIdle(long now) {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                Iterator<UserCart> carts = shard.carts.values().iterator();
+                while (carts.hasNext()) {
+                    UserCart cart = carts.next();
+                    // Skip carts in use right now, they are not idle
+                    if (!cart.lock.tryLock()) {
+                        continue;
+                    }
+                    try {
+                        if (!cart.dirty && now - cart.lastAccess > idleTimeoutNanos) {
+                            cart.evicted = true;
+                            carts.remove();
+                        }
+                    } finally {
+                        cart.lock.unlock();
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the user's cart locked by the calling thread, loading it from the database on first use.
+     * The shard lock is only held to find or create the entry, the load happens under the cart's own lock.
+     */
+    private UserCart lockCart(Long userId) {
+        if (!enabled) {
+            throw new IllegalStateException("Cart store is disabled");
+        }
+        Shard shard = shardFor(userId);
+        while (true) {
+            UserCart cart;
+            shard.lock.lock();
+            try {
+                cart = shard.carts.computeIfAbsent(userId, UserCart::new);
+            } finally {
+                shard.lock.unlock();
+            }
+            cart.lock.lock();
+            if (cart.evicted) {
+                // Dropped between lookup and lock, take the fresh entry instead
+                cart.lock.unlock();
+                continue;
+            }
+            if (!cart.loaded) {
+                try {
+                    for (CartLineDto line : cartRepo.findLinesByUserId(userId)) {
+                        cart.bookByCart.put(line.getCartId(), line.getBookId());
+                        cart.quantities.put(line.getBookId(), line.getCartQuantity());
+                        cart.flushed.put(line.getBookId(), line.getCartQuantity());
+                    }
+                } catch (RuntimeException e) {
+                    cart.lock.unlock();
+                    throw e;
+                }
+                cart.loaded = true;
+            }
+            cart.lastAccess = System.nanoTime();
+            return cart;
+        }
+    }
+
+    private Shard shardFor(Long userId) {
+        return shards[LongHashing.mix(userId) & (shards.length - 1)];
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, UserCart> carts = new HashMap<>();
+    }
+
+    /**
+     * One user's cart. Every field is guarded by lock; a ReentrantLock rather than synchronized so a virtual thread
+     * waiting on it, or loading the cart under it, does not pin its carrier.
+     */
+    private final class UserCart {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long userId;
+        private final LongIntHashMap quantities = new LongIntHashMap();
+        // Quantities as last written to the database, the flush only sends lines that differ
+        private final LongIntHashMap flushed = new LongIntHashMap();
+        private final LongLongHashMap bookByCart = new LongLongHashMap();
+        private boolean loaded;
+        private boolean dirty;
+        private boolean evicted;
+        private long lastAccess;
+
+        private UserCart(Long userId) {
+            this.userId = userId;
+        }
+
+        private Change add(long bookId, int delta, int maxQuantity, IntConsumer beforeApply) {
+            if (!quantities.containsKey(bookId)) {
+                return Change.NO_LINE;
+            }
+            long updated = (long) quantities.get(bookId, 0) + delta;
+            if (updated < 1 || updated > maxQuantity) {
+                return Change.REJECTED;
+            }
+            beforeApply.accept((int) updated);
+            quantities.put(bookId, (int) updated);
+            markDirty();
+            return Change.APPLIED;
+        }
+
+        private void markDirty() {
+            if (!dirty) {
+                dirty = true;
+                dirtyCarts.add(this);
+            }
+        }
+    }
+}
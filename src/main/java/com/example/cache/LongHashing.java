@@ -0,0 +1,16 @@
+package com.example.cache;
+
+/**
+ * LongHashing.java
+ * Shared hash for the primitive maps. Sequence IDs are dense and sequential, so the bits are spread
+ * with a Fibonacci multiply before masking to a table index.
+ */
+final class LongHashing {
+    private LongHashing() {
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cache;
+
+/**
+ * LongLongHashMap.java
+ * Open-addressing hash map from long to long with no boxing, two long[] with linear probing.
+ * Key 0 marks an empty slot, which is safe for database IDs since they start at 1. Not thread-safe.
+ */
+final class LongLongHashMap {
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongLongHashMap() {
+        this(8);
+    }
+
+    LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    long get(long key, long missing) {
+        int slot = slotOf(key);
+        return slot < 0 ? missing : values[slot];
+    }
+
+    boolean containsKey(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int mask = keys.length - 1;
+        for (int slot = LongHashing.mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                // Grow at 50% load, probes stay short
+                if (++size * 2 > keys.length) {
+                    resize(keys.length * 2);
+                }
+                return;
+            }
+        }
+    }
+
+    void remove(long key) {
+        int gap = slotOf(key);
+        if (gap < 0) {
+            return;
+        }
+        size--;
+        // Backward shift: pull later entries of the probe run into the gap so no tombstones are needed
+        int mask = keys.length - 1;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = LongHashing.mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Entry entry) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                entry.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        if (key == 0) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int slot = LongHashing.mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, long value);
+    }
+}
@@ -7,11 +7,19 @@ package com.example.controller;
  */
 
 import com.example.dto.BookEntityToDto;
+import com.example.dto.BookPageDto;
+import com.example.dto.BookSearchResultDto;
+import com.example.dto.BookSuggestionDto;
 import com.example.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -19,9 +27,11 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:5173")
 public class BookController {
     private BookService bookService;
+    private ObjectMapper objectMapper;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -34,6 +44,65 @@ public class BookController {
         return new ResponseEntity<List<BookEntityToDto>>(bookService.allBooks(), HttpStatus.OK);
     }
 
+    /**
+     * Retrieves one page of books ordered by ID.
+     *
+     * @param after the last book ID of the previous page, omit for the first page
+     * @param size  the number of books per page (capped by the service)
+     * @return a ResponseEntity containing the page and the cursor for the next one, null when this is the last page
+     */
+    @GetMapping("/books")
+    public ResponseEntity<BookPageDto> getBooksPage(@RequestParam(required = false) Long after, @RequestParam(defaultValue = "50") Integer size) {
+        return new ResponseEntity<BookPageDto>(bookService.booksPage(after, size), HttpStatus.OK);
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, one book per line.
+     * Rows are written as they are read from the database cursor, so memory use does not grow with the catalog.
+     *
+     * @return a ResponseEntity whose body writes the books to the response stream
+     */
+    @GetMapping(value = "/allBooks/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> {
+            SequenceWriter sequenceWriter = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream);
+            bookService.streamAllBooks(book -> {
+                try {
+                    sequenceWriter.write(book);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            sequenceWriter.flush();
+        };
+        return new ResponseEntity<StreamingResponseBody>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Searches book names, authors and descriptions, best match first.
+     *
+     * @param q    the free-text query
+     * @param page the zero-based page number
+     * @param size the number of books per page
+     * @return a ResponseEntity containing the total number of hits and the requested page of books
+     */
+    @GetMapping("/search")
+    public ResponseEntity<BookSearchResultDto> searchBooks(@RequestParam String q, @RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "20") Integer size) {
+        return new ResponseEntity<BookSearchResultDto>(bookService.searchBooks(q, page, size), HttpStatus.OK);
+    }
+
+    /**
+     * Suggests titles and authors starting with what the user has typed, most popular first.
+     *
+     * @param q     the prefix typed so far
+     * @param limit the maximum number of suggestions
+     * @return a ResponseEntity containing the suggestions
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestionDto>> suggestBooks(@RequestParam String q, @RequestParam(defaultValue = "10") Integer limit) {
+        return new ResponseEntity<List<BookSuggestionDto>>(bookService.suggestBooks(q, limit), HttpStatus.OK);
+    }
+
     /**
      * Retrieves a book by its ID.
      *
@@ -6,20 +6,28 @@ package com.example.controller;
  * It allows adding, deleting, and updating books based on user roles.
  */
 
+import com.example.dto.BookImportResultDto;
 import com.example.dto.DtoToBookEntity;
+import com.example.service.BookImportService;
 import com.example.service.BookService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/bookApi")
 @CrossOrigin(origins = "http://localhost:5173")
 public class BookJwtController {
     private BookService bookService;
+    private BookImportService bookImportService;
 
-    public BookJwtController(BookService bookService) {
+    public BookJwtController(BookService bookService, BookImportService bookImportService) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
     }
 
     /**
@@ -67,4 +75,67 @@ public class BookJwtController {
             return new ResponseEntity<String>("Token is NOT Valid to Update Book", HttpStatus.NOT_FOUND);
         }
     }
+
+    /**
+     * Splits a hot book's stock over several rows so parallel checkouts do not queue on one, or merges it back with 0.
+     * @param role the role of the user making the request
+     * @param bookId the ID of the book
+     * @param stripes the number of stock rows to use, 0 to turn striping off
+     * @return a ResponseEntity with a success message or an error message
+     */
+    @PutMapping("/stockStripes/{bookId}")
+    public ResponseEntity<String> updateStockStripes(@RequestAttribute("role") String role, @PathVariable Long bookId, @RequestParam Integer stripes) {
+        if ("ADMIN".equalsIgnoreCase(role)) {
+            return new ResponseEntity<String>(bookService.updateStockStripes(bookId, stripes), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<String>("Token is NOT Valid to Change Stock Stripes", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the book cache.
+     * @param role the role of the user making the request
+     * @return a ResponseEntity with the cache counters or an error message
+     */
+    @GetMapping("/cacheStats")
+    public ResponseEntity<?> cacheStats(@RequestAttribute("role") String role) {
+        if ("ADMIN".equalsIgnoreCase(role)) {
+            return new ResponseEntity<Map<String, Long>>(bookService.cacheStats(), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<String>("Token is NOT Valid to View Cache Stats", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Returns the size and estimated memory footprint of the suggestion index.
+     * @param role the role of the user making the request
+     * @return a ResponseEntity with the footprint report or an error message
+     */
+    @GetMapping("/suggestStats")
+    public ResponseEntity<?> suggestStats(@RequestAttribute("role") String role) {
+        if ("ADMIN".equalsIgnoreCase(role)) {
+            return new ResponseEntity<Map<String, Long>>(bookService.suggestStats(), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<String>("Token is NOT Valid to View Suggest Stats", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Imports a catalog in bulk. The body is read as a stream, CSV with a header row or one JSON book per line,
+     * and books with the same name and author are updated instead of added again.
+     * @param role the role of the user making the request
+     * @param request the request whose body holds the catalog
+     * @return a ResponseEntity with the import counters and the rows that failed, or an error message
+     */
+    @PostMapping(value = "/importBooks", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importBooks(@RequestAttribute("role") String role, HttpServletRequest request) throws IOException {
+        if ("ADMIN".equalsIgnoreCase(role)) {
+            BookImportResultDto result = request.getContentType().startsWith("text/csv")
+                    ? bookImportService.importCsv(request.getInputStream())
+                    : bookImportService.importNdjson(request.getInputStream());
+            return new ResponseEntity<BookImportResultDto>(result, HttpStatus.OK);
+        } else {
+            return new ResponseEntity<String>("Token is NOT Valid to Import Books", HttpStatus.NOT_FOUND);
+        }
+    }
 }
@@ -3,10 +3,14 @@ package com.example.controller;
  * OrderJwtController.java
  * This controller handles order-related operations with JWT authentication.
  * It allows placing, canceling, and retrieving orders based on user roles.
+ * Orders can also be queued with orderPlaceAsync and followed with orderStatus.
  */
 
 import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderFilterDto;
 import com.example.entity.Order;
+import com.example.order.OrderBatcher;
+import com.example.order.OrderPipeline;
 import com.example.service.OrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,9 +21,13 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "http://localhost:5173")
 public class OrderJwtController {
     private OrderService orderService;
+    private OrderBatcher orderBatcher;
+    private OrderPipeline orderPipeline;
 
-    public OrderJwtController(OrderService orderService) {
+    public OrderJwtController(OrderService orderService, OrderBatcher orderBatcher, OrderPipeline orderPipeline) {
         this.orderService = orderService;
+        this.orderBatcher = orderBatcher;
+        this.orderPipeline = orderPipeline;
     }
 
     /**
@@ -32,12 +40,45 @@ public class OrderJwtController {
     @PostMapping("/orderPlace")
     public ResponseEntity<?> placeOrder(@RequestAttribute("role") String role, @RequestAttribute("userId") Long userId, @RequestBody DtoToAddressEntity dtoToAddressEntity) {
         if ("USER".equalsIgnoreCase(role)) {
-            return new ResponseEntity<Order>(orderService.placeOrder(userId,dtoToAddressEntity), HttpStatus.CREATED);
+            return new ResponseEntity<Order>(orderBatcher.placeOrder(userId,dtoToAddressEntity), HttpStatus.CREATED);
         } else {
             return new ResponseEntity<String>("Token is NOT Valid to Add To Cart Book!!", HttpStatus.NOT_FOUND);
         }
     }
 
+    /**
+     * Queues an order for a user and returns straight away, a worker places it in the background.
+     * @param role the role of the user making the request
+     * @param userId the ID of the user placing the order
+     * @param dtoToAddressEntity the DTO containing address details for the order
+     * @return a ResponseEntity with the order token to poll orderStatus with, or an error message
+     */
+    @PostMapping("/orderPlaceAsync")
+    public ResponseEntity<?> placeOrderAsync(@RequestAttribute("role") String role, @RequestAttribute("userId") Long userId, @RequestBody DtoToAddressEntity dtoToAddressEntity) {
+        if ("USER".equalsIgnoreCase(role)) {
+            return new ResponseEntity<>(orderPipeline.submit(userId, dtoToAddressEntity), HttpStatus.ACCEPTED);
+        } else {
+            return new ResponseEntity<String>("Token is NOT Valid to Place Order!!", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Retrieves the status of an order queued with orderPlaceAsync.
+     * @param role the role of the user making the request
+     * @param userId the ID of the user who queued the order
+     * @param orderToken the token returned by orderPlaceAsync
+     * @return a ResponseEntity with the status, and the order ID once placed, or an error message
+     */
+    @GetMapping("/orderStatus/{orderToken}")
+    public ResponseEntity<?> getOrderStatus(@RequestAttribute("role") String role, @RequestAttribute("userId") Long userId, @PathVariable String orderToken) {
+        if (!"USER".equalsIgnoreCase(role)) {
+            return new ResponseEntity<String>("Token is NOT Valid to Get Order Status!!", HttpStatus.NOT_FOUND);
+        }
+        return orderPipeline.status(userId, orderToken)
+                .<ResponseEntity<?>>map(status -> new ResponseEntity<>(status, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<String>("Order NOT Found with Token : " + orderToken, HttpStatus.NOT_FOUND));
+    }
+
     /**
      * Cancels an order by its ID.
      * @param role the role of the user making the request
@@ -55,15 +96,16 @@ public class OrderJwtController {
     }
 
     /**
-     * Retrieves all orders for a user or admin.
+     * Retrieves one page of order summaries for an admin, newest first.
      * @param role the role of the user making the request
-     * @param userId the ID of the user whose orders are being retrieved
-     * @return a ResponseEntity with a list of orders or an error message
+     * @param userId the ID of the user making the request
+     * @param filter optional status, customerId, fromDate, toDate filters plus the before cursor and page size
+     * @return a ResponseEntity with the page of orders or an error message
      */
     @GetMapping("/getAllOrders")
-    public ResponseEntity<?> getAllOrders(@RequestAttribute("role") String role, @RequestAttribute("userId") Long userId){
+    public ResponseEntity<?> getAllOrders(@RequestAttribute("role") String role, @RequestAttribute("userId") Long userId, @ModelAttribute OrderFilterDto filter){
         if ("ADMIN".equalsIgnoreCase(role)) {
-            return new ResponseEntity<>(orderService.getAllOrders(userId), HttpStatus.CREATED);
+            return new ResponseEntity<>(orderService.getAllOrders(filter), HttpStatus.CREATED);
         } else {
             return new ResponseEntity<String>("Token is NOT Valid to Get All Cart!!", HttpStatus.NOT_FOUND);
         }
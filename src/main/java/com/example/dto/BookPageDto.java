@@ -0,0 +1,31 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPageDto {
+    private List<BookEntityToDto> books;
+    private Long nextCursor;
+
+    public List<BookEntityToDto> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookEntityToDto> books) {
+        this.books = books;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
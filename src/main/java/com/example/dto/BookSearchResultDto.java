@@ -0,0 +1,49 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSearchResultDto {
+    private Integer totalHits;
+    private Integer page;
+    private Integer size;
+    private List<BookEntityToDto> books;
+
+    public Integer getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(Integer totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public List<BookEntityToDto> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookEntityToDto> books) {
+        this.books = books;
+    }
+}
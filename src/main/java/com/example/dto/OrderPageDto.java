@@ -0,0 +1,31 @@
+package com.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageDto {
+    private List<OrderSummaryDto> orders;
+    private Long nextCursor;
+
+    public List<OrderSummaryDto> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderSummaryDto> orders) {
+        this.orders = orders;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -12,7 +12,8 @@ import lombok.NoArgsConstructor;
 @Table(name = "ADDRESS_TBL")
 public class Address {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+    @SequenceGenerator(name = "address_seq", sequenceName = "address_seq", allocationSize = 50)
     private Long addId;
     private String name;
     private String phoneNumber;
@@ -4,16 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "BOOK_TBL")
+@Table(name = "BOOK_TBL", indexes = @Index(name = "idx_book_name", columnList = "book_name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long bookId;
     private String bookName;
     private String bookAuthor;
@@ -21,6 +26,12 @@ public class Book {
     private String bookLogoMultipart;
     private Double bookPrice;
     private Integer bookQuantity;
+    // Number of BOOK_STOCK_STRIPE_TBL rows holding this book's stock, 0 when bookQuantity itself is the stock.
+    // Striped books are sold from the stripes and bookQuantity is only their total, refreshed every second
+    @Column(nullable = false)
+    private Integer stockStripes = 0;
+    @Version
+    private Long version;
 
     public Long getBookId() {
         return bookId;
@@ -77,4 +88,20 @@ public class Book {
     public void setBookQuantity(Integer bookQuantity) {
         this.bookQuantity = bookQuantity;
     }
+
+    public Integer getStockStripes() {
+        return stockStripes;
+    }
+
+    public void setStockStripes(Integer stockStripes) {
+        this.stockStripes = stockStripes;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
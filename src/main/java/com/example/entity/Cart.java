@@ -10,17 +10,22 @@ import jakarta.persistence.*;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "CART_TBL")
+// One line per user and book, adding a book that is already in the cart raises the quantity instead
+@Table(name = "CART_TBL", uniqueConstraints = @UniqueConstraint(name = "uk_cart_user_book", columnNames = {"user_user_id", "book_book_id"}))
 public class Cart {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_seq")
+    @SequenceGenerator(name = "cart_seq", sequenceName = "cart_seq", allocationSize = 50)
     private Long cartId;
-    @ManyToOne(cascade = CascadeType.ALL)
+    // No cascade: deleting a cart line must never remove the user or the book it points to
+    @ManyToOne
     private User user;
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne
     private Book book;
     private Integer cartQuantity;
     private Double totalPrice;
+    @Version
+    private Long version;
 
     public Long getCartId() {
         return cartId;
@@ -61,4 +66,12 @@ public class Cart {
     public void setTotalPrice(Double totalPrice) {
         this.totalPrice = totalPrice;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -13,10 +13,16 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "ORDER_TBL")
+// Indexes back the admin order listing: every filter is paired with the order ID it pages on
+@Table(name = "ORDER_TBL", indexes = {
+        @Index(name = "idx_order_cancel_id", columnList = "cancel_order, order_id"),
+        @Index(name = "idx_order_user_id", columnList = "user_user_id, order_id"),
+        @Index(name = "idx_order_date_id", columnList = "order_date, order_id")
+})
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
     private Long orderId;
     private LocalDate orderDate;
     private Double orderPrice;
@@ -28,8 +34,10 @@ public class Order {
     @ManyToOne(cascade = CascadeType.ALL)
     private User user;
 
-    @ManyToMany(cascade = CascadeType.ALL)
-    private List<Book> book;
+    // Written by OrderItemRepo in one JDBC batch, never through this collection
+    @OneToMany
+    @JoinColumn(name = "order_id", insertable = false, updatable = false)
+    private List<OrderItem> items;
 
     private Boolean cancelOrder;
 
@@ -81,12 +89,12 @@ public class Order {
         this.user = user;
     }
 
-    public List<Book> getBook() {
-        return book;
+    public List<OrderItem> getItems() {
+        return items;
     }
 
-    public void setBook(List<Book> book) {
-        this.book = book;
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
     }
 
     public Boolean getCancelOrder() {
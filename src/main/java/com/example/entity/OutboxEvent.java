@@ -0,0 +1,124 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order event waiting to be handed to the OrderEventHandlers. Written in the transaction that changed the order,
+ * so it exists exactly when the change committed; deleted once every handler took it.
+ * A failed dispatch is tried again from availableAt, after the last allowed attempt the row stays as FAILED.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "OUTBOX_EVENT_TBL", indexes = {
+        // The relay's claim query walks PENDING events oldest first and checks availableAt in the index
+        @Index(name = "idx_outbox_status_event", columnList = "status, event_id, available_at")
+})
+public class OutboxEvent {
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    public static final String PENDING = "PENDING";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    @Column(name = "event_id")
+    private Long eventId;
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+    // The order the event is about
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    // JSON snapshot of the order at the time of the event
+    @Column(length = 1000)
+    private String payload;
+    @Column(nullable = false, length = 10)
+    private String status;
+    @Column(nullable = false)
+    private Integer attempts;
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Units of a book held for one user's cart until expiresAt. A book's available quantity is its stock
+ * minus the unexpired holds of everyone else, expired rows are ignored and swept later.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "STOCK_HOLD_TBL",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hold_user_book", columnNames = {"user_id", "book_id"}),
+        indexes = {
+                // Sum of active holds per book
+                @Index(name = "idx_hold_book_expires", columnList = "book_id, expires_at"),
+                // Sweeper range scan
+                @Index(name = "idx_hold_expires", columnList = "expires_at")
+        })
+public class StockHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_hold_seq")
+    @SequenceGenerator(name = "stock_hold_seq", sequenceName = "stock_hold_seq", allocationSize = 50)
+    private Long holdId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    private Integer quantity;
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public Long getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(Long holdId) {
+        this.holdId = holdId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One share of a hot book's stock. With stock striping on, a book's units are spread over several of these rows so
+ * concurrent checkouts lock different rows instead of queueing on the single BOOK_TBL row.
+ * Written over JDBC only, the entity is here for the schema.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "BOOK_STOCK_STRIPE_TBL")
+@IdClass(StockStripe.Key.class)
+public class StockStripe {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+    @Id
+    @Column(name = "stripe_no")
+    private Integer stripeNo;
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getStripeNo() {
+        return stripeNo;
+    }
+
+    public void setStripeNo(Integer stripeNo) {
+        this.stripeNo = stripeNo;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long bookId;
+        private Integer stripeNo;
+    }
+}
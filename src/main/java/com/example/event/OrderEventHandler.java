@@ -0,0 +1,23 @@
+package com.example.event;
+
+import com.example.entity.OutboxEvent;
+
+/**
+ * A local consumer of order events (emails, analytics, inventory sync). Every bean of this type is called by the
+ * outbox relay for the event types it supports, off the request path.
+ * Delivery is at least once: an event whose dispatch failed in any handler, or whose batch did not commit,
+ * is handed to all its handlers again, so handle must be idempotent, for example keyed on the event ID.
+ * Handlers run outside any transaction, so database work of their own commits or rolls back on its own.
+ * An event is leased to one relay for bookstore.outbox.claim-timeout, a batch of handlers must finish within it.
+ */
+public interface OrderEventHandler {
+    /**
+     * @param eventType OutboxEvent.ORDER_PLACED or OutboxEvent.ORDER_CANCELLED
+     */
+    boolean supports(String eventType);
+
+    /**
+     * Handles one event. Throwing schedules the event for another attempt with backoff.
+     */
+    void handle(OutboxEvent event);
+}
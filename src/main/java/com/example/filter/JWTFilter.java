@@ -1,5 +1,6 @@
 package com.example.filter;
 
+import com.example.utils.TokenPrincipal;
 import com.example.utils.TokenUtility;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpFilter;
@@ -36,10 +37,10 @@ public class JWTFilter extends HttpFilter {
             token = token.substring(7); // Remove "Bearer " prefix
 
             try {
-                String role = tokenUtility.getRoleFromToken(token);
-                Long userId = tokenUtility.getEmpIdFromToken(token);
-                request.setAttribute("role", role);
-                request.setAttribute("userId", userId);
+                // One verification per request, repeat tokens come from the verified-token cache
+                TokenPrincipal principal = tokenUtility.verify(token);
+                request.setAttribute("role", principal.role());
+                request.setAttribute("userId", principal.userId());
                 // Proceed with the filter chain
                 chain.doFilter(request, response);
             } catch (Exception e) {
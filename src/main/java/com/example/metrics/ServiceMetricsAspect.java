@@ -0,0 +1,95 @@
+package com.example.metrics;
+
+/**
+ * ServiceMetricsAspect.java
+ * Times every public method of the *ServiceImpl beans. Each method gets a latency histogram tagged with
+ * its outcome and exception, and an in-flight gauge. Meters are resolved once per method (and per exception type)
+ * and kept in a map, so the request path only pays for a map lookup and the timer update.
+ * Overloads of a method share one set of meters, since the tags only carry the service and method name.
+ */
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    static final String CALLS = "bookstore.service.calls";
+    static final String ACTIVE = "bookstore.service.active";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodMeters> metersByMethod = new ConcurrentHashMap<>();
+    private final Map<String, MethodMeters> metersByName = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.example.serviceImpl.*ServiceImpl.*(..))")
+    public Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters meters = metersByMethod.computeIfAbsent(method, key -> meters(joinPoint.getTarget().getClass().getSimpleName(), key.getName()));
+        long start = System.nanoTime();
+        meters.active.incrementAndGet();
+        try {
+            Object result = joinPoint.proceed();
+            meters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            meters.error(e.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            meters.active.decrementAndGet();
+        }
+    }
+
+    private MethodMeters meters(String serviceName, String methodName) {
+        return metersByName.computeIfAbsent(serviceName + '.' + methodName, key -> new MethodMeters(serviceName, methodName));
+    }
+
+    private class MethodMeters {
+        private final String serviceName;
+        private final String methodName;
+        private final Timer success;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Map<Class<?>, Timer> errors = new ConcurrentHashMap<>();
+
+        private MethodMeters(String serviceName, String methodName) {
+            this.serviceName = serviceName;
+            this.methodName = methodName;
+            this.success = timer("SUCCESS", "none");
+            Gauge.builder(ACTIVE, active, AtomicInteger::get)
+                    .description("Service calls currently running")
+                    .tag("service", serviceName)
+                    .tag("method", methodName)
+                    .register(meterRegistry);
+        }
+
+        private Timer error(Class<?> exceptionType) {
+            return errors.computeIfAbsent(exceptionType, type -> timer("ERROR", type.getSimpleName()));
+        }
+
+        private Timer timer(String outcome, String exception) {
+            return Timer.builder(CALLS)
+                    .description("Service method latency, error calls carry the exception type")
+                    .tag("service", serviceName)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.order;
+
+/**
+ * OrderBatcher.java
+ * Group commit for checkouts, off unless bookstore.order-batch.enabled=true.
+ * Callers of placeOrder hand their order to a single committer thread and wait for it. The committer takes what has
+ * queued up, waits up to bookstore.order-batch.max-delay-ms for more until bookstore.order-batch.max-size orders,
+ * and places them in one transaction through OrderService.placeOrders: one stock update batch, one insert batch per
+ * table and one commit for the lot. Under a burst the next batch fills while the current one commits, so the
+ * batches grow with the load instead of every order paying its own commit.
+ * An order whose books ran out is left out of the batch by placeOrders and the rest still commit. Orders the batch
+ * could not place (left out, a lone order, a batch that failed as a whole, shutdown) are handed back to their callers,
+ * which place them through OrderService.placeOrder on their own threads, so the committer never waits on retries.
+ * A caller gives up after bookstore.order-batch.timeout-ms.
+ * Metrics: bookstore.order.batch.size and bookstore.order.batch.fallbacks.
+ */
+
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Order;
+import com.example.exception.CustomiseException;
+import com.example.service.OrderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+public class OrderBatcher {
+    static final String BATCH_SIZE = "bookstore.order.batch.size";
+    static final String FALLBACKS = "bookstore.order.batch.fallbacks";
+    private static final long IDLE_POLL_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final OrderService orderService;
+    private final CartStore cartStore;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final long timeoutMs;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSize;
+    private final Counter fallbacks;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public OrderBatcher(OrderService orderService, CartStore cartStore, MeterRegistry meterRegistry,
+                        @Value("${bookstore.order-batch.enabled:false}") boolean enabled,
+                        @Value("${bookstore.order-batch.max-size:50}") int maxSize,
+                        @Value("${bookstore.order-batch.max-delay-ms:2}") long maxDelayMs,
+                        @Value("${bookstore.order-batch.timeout-ms:30000}") long timeoutMs) {
+        this.orderService = orderService;
+        this.cartStore = cartStore;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.timeoutMs = timeoutMs;
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE)
+                .description("Orders placed per commit")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder(FALLBACKS)
+                .description("Orders the batch could not place, handed back to their callers")
+                .register(meterRegistry);
+        this.committer = new Thread(this::commitLoop, "order-batcher");
+        this.committer.setDaemon(true);
+        if (enabled) {
+            this.committer.start();
+        }
+    }
+
+    /**
+     * Places an order for the user's current cart, together with whatever other orders arrive at the same time.
+     * Blocks until the order is committed.
+     *
+     * @return the placed order
+     * @throws RuntimeException what OrderService.placeOrder would have thrown for this order alone
+     */
+    public Order placeOrder(Long userId, DtoToAddressEntity dtoToAddressEntity) {
+        // The order is priced from the database. Quantities still waiting in the cart store are committed before
+        // its transaction starts, a flush inside it would come after its first read fixed the snapshot
+        cartStore.flush(userId);
+        if (!enabled || !running) {
+            return orderService.placeOrder(userId, dtoToAddressEntity);
+        }
+        Request request = new Request(userId, dtoToAddressEntity, new CompletableFuture<>());
+        queue.add(request);
+        // stop() may have drained the queue between the check above and the add, then nobody else will take it
+        if (!running && queue.remove(request)) {
+            return orderService.placeOrder(userId, dtoToAddressEntity);
+        }
+        Order order;
+        try {
+            order = request.result().orTimeout(timeoutMs, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // It may still commit, placing it again could order the cart twice
+                throw new CustomiseException("Order Is Still Being Placed, Check Your Orders Before Trying Again");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return order != null ? order : orderService.placeOrder(userId, dtoToAddressEntity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // The committer finishes what is queued before it stops, anything left is handed back
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        for (Request request = queue.poll(); request != null; request = queue.poll()) {
+            request.handBack();
+        }
+    }
+
+    private void commitLoop() {
+        List<Request> batch = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                batch.forEach(Request::handBack);
+            } catch (Throwable e) {
+                // Whatever broke, the callers of this batch hear about it and the committer carries on with the next
+                batch.forEach(request -> request.result().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void collect(List<Request> batch) throws InterruptedException {
+        Request first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxSize) {
+            // Orders already waiting join straight away, the delay only applies while the queue is empty
+            if (queue.drainTo(batch, maxSize - batch.size()) > 0) {
+                continue;
+            }
+            Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<Request> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // A user's second order needs the first one committed, it is placed on its own afterwards like a later request
+        Map<Long, Request> byUser = new LinkedHashMap<>();
+        List<Request> alone = new ArrayList<>();
+        for (Request request : batch) {
+            // The caller already gave up waiting
+            if (request.result().isDone()) {
+                continue;
+            }
+            if (byUser.putIfAbsent(request.userId(), request) != null) {
+                alone.add(request);
+            }
+        }
+        if (byUser.isEmpty()) {
+            return;
+        }
+        batchSize.record(byUser.size());
+        if (byUser.size() == 1) {
+            // Nothing to share a commit with, the caller places it and retries lost lock races on its own thread
+            alone.addAll(0, byUser.values());
+        } else {
+            Map<Long, Order> orders;
+            try {
+                Map<Long, DtoToAddressEntity> addressesByUserId = new LinkedHashMap<>();
+                byUser.forEach((userId, request) -> addressesByUserId.put(userId, request.address()));
+                orders = orderService.placeOrders(addressesByUserId);
+            } catch (RuntimeException e) {
+                orders = Map.of();
+            }
+            for (Map.Entry<Long, Request> entry : byUser.entrySet()) {
+                Order order = orders.get(entry.getKey());
+                if (order != null) {
+                    entry.getValue().result().complete(order);
+                } else {
+                    fallbacks.increment();
+                    alone.add(entry.getValue());
+                }
+            }
+        }
+        alone.forEach(Request::handBack);
+    }
+
+    private record Request(Long userId, DtoToAddressEntity address, CompletableFuture<Order> result) {
+        // No order means the caller places it itself
+        void handBack() {
+            result.complete(null);
+        }
+    }
+}
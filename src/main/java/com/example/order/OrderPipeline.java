@@ -0,0 +1,184 @@
+package com.example.order;
+
+/**
+ * OrderPipeline.java
+ * Asynchronous checkout. submit only checks that the user has something to order, queues the order and hands back
+ * a token; a bounded pool of workers places queued orders through OrderBatcher.placeOrder, and status reports how
+ * far an order got. A full queue turns new orders away instead of piling up request threads.
+ * Tickets live in memory for bookstore.order-pipeline.status-ttl, orders still queued when the JVM dies are lost
+ * (their carts are untouched, the user can order again).
+ * Metrics: bookstore.order.queue.depth, bookstore.order.queue.wait, bookstore.order.processing and bookstore.order.rejected.
+ */
+
+import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderStatusDto;
+import com.example.entity.Order;
+import com.example.exception.CustomiseException;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class OrderPipeline {
+    private static final Logger log = LoggerFactory.getLogger(OrderPipeline.class);
+    static final String QUEUE_DEPTH = "bookstore.order.queue.depth";
+    static final String QUEUE_WAIT = "bookstore.order.queue.wait";
+    static final String PROCESSING = "bookstore.order.processing";
+    static final String REJECTED = "bookstore.order.rejected";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Where a queued order stands.
+     */
+    public enum Status {
+        QUEUED,
+        PROCESSING,
+        PLACED,
+        FAILED
+    }
+
+    private final OrderBatcher orderBatcher;
+    private final UserRepo userRepo;
+    private final CartRepo cartRepo;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Ticket> tickets;
+    // The token of each user's order still queued or being placed, a second submit gets the same ticket back
+    private final ConcurrentMap<Long, String> pendingByUser = new ConcurrentHashMap<>();
+    private final Timer queueWait;
+    private final Timer placed;
+    private final Timer failed;
+    private final Counter rejected;
+
+    public OrderPipeline(OrderBatcher orderBatcher, UserRepo userRepo, CartRepo cartRepo, MeterRegistry meterRegistry,
+                         @Value("${bookstore.order-pipeline.workers:4}") int workers,
+                         @Value("${bookstore.order-pipeline.queue-capacity:1000}") int queueCapacity,
+                         @Value("${bookstore.order-pipeline.status-ttl:1h}") Duration statusTtl) {
+        this.orderBatcher = orderBatcher;
+        this.userRepo = userRepo;
+        this.cartRepo = cartRepo;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Fixed size, each worker holds a connection while it places an order so this stays below the pool size
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "order-worker-" + threadNumber.incrementAndGet()), new ThreadPoolExecutor.AbortPolicy());
+        this.tickets = Caffeine.newBuilder().expireAfterWrite(statusTtl).build();
+
+        Gauge.builder(QUEUE_DEPTH, this.workers, pool -> pool.getQueue().size())
+                .description("Orders waiting for a worker")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder(QUEUE_WAIT)
+                .description("Time from submit until a worker picks the order up")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.placed = processingTimer(meterRegistry, Status.PLACED);
+        this.failed = processingTimer(meterRegistry, Status.FAILED);
+        this.rejected = Counter.builder(REJECTED)
+                .description("Orders turned away because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an order for the user's current cart.
+     *
+     * @return the ticket to poll with status, QUEUED or the ticket of the user's order already in progress
+     */
+    public OrderStatusDto submit(Long userId, DtoToAddressEntity dtoToAddressEntity) {
+        if (!userRepo.existsById(userId)) {
+            throw new CustomiseException("Enter a Valid Token");
+        }
+        if (!cartRepo.existsByUserUserId(userId)) {
+            throw new CustomiseException("Cart is Empty, Nothing to Order");
+        }
+        String token = UUID.randomUUID().toString();
+        String pending = pendingByUser.putIfAbsent(userId, token);
+        if (pending != null) {
+            Ticket ticket = tickets.getIfPresent(pending);
+            return ticket != null ? ticket.status() : new OrderStatusDto(pending, Status.QUEUED.name(), null, null);
+        }
+        OrderStatusDto queued = update(token, userId, Status.QUEUED, null, null);
+        long enqueuedAt = System.nanoTime();
+        try {
+            workers.execute(() -> process(token, userId, dtoToAddressEntity, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            tickets.invalidate(token);
+            pendingByUser.remove(userId, token);
+            rejected.increment();
+            throw new CustomiseException("Too Many Orders in Progress, Please Try Again Later");
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the ticket of one of the user's orders, empty for unknown or expired tokens and for other users' orders.
+     */
+    public Optional<OrderStatusDto> status(Long userId, String token) {
+        Ticket ticket = tickets.getIfPresent(token);
+        if (ticket == null || !ticket.userId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(ticket.status());
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() throws InterruptedException {
+        // Queued orders are finished while the repositories are still up
+        workers.shutdown();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Order pipeline stopped with {} orders still queued", workers.getQueue().size());
+            workers.shutdownNow();
+        }
+    }
+
+    private void process(String token, Long userId, DtoToAddressEntity dtoToAddressEntity, long enqueuedAt) {
+        long start = System.nanoTime();
+        queueWait.record(start - enqueuedAt, TimeUnit.NANOSECONDS);
+        update(token, userId, Status.PROCESSING, null, null);
+        // Timers are recorded before the final status is published, a poller that sees it done also sees the metrics
+        try {
+            Order order = orderBatcher.placeOrder(userId, dtoToAddressEntity);
+            placed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            update(token, userId, Status.PLACED, order.getOrderId(), null);
+        } catch (CustomiseException e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            update(token, userId, Status.FAILED, null, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Queued order {} of user {} failed", token, userId, e);
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            update(token, userId, Status.FAILED, null, "Order Could NOT Be Placed, Please Try Again");
+        } finally {
+            pendingByUser.remove(userId, token);
+        }
+    }
+
+    private OrderStatusDto update(String token, Long userId, Status status, Long orderId, String message) {
+        OrderStatusDto dto = new OrderStatusDto(token, status.name(), orderId, message);
+        tickets.put(token, new Ticket(userId, dto));
+        return dto;
+    }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, Status outcome) {
+        return Timer.builder(PROCESSING)
+                .description("Time a worker spent placing a queued order")
+                .tag("outcome", outcome.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record Ticket(Long userId, OrderStatusDto status) {
+    }
+}
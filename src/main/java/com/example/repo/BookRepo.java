@@ -1,9 +1,41 @@
 package com.example.repo;
 
+import com.example.dto.BookEntityToDto;
 import com.example.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface BookRepo extends JpaRepository<Book, Long> {
+public interface BookRepo extends JpaRepository<Book, Long>, BookStockRepo {
+
+    // Keyset page: rows strictly after the cursor, mapped straight into DTOs so no entities are managed
+    @Query("select new com.example.dto.BookEntityToDto(b.bookId, b.bookName, b.bookAuthor, b.bookDescription, b.bookLogoMultipart, b.bookPrice, b.bookQuantity) " +
+            "from Book b where b.bookId > :afterBookId order by b.bookId")
+    List<BookEntityToDto> findPageAfter(@Param("afterBookId") Long afterBookId, Limit limit);
+
+    // Cursor-backed stream of the whole catalog, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.dto.BookEntityToDto(b.bookId, b.bookName, b.bookAuthor, b.bookDescription, b.bookLogoMultipart, b.bookPrice, b.bookQuantity) " +
+            "from Book b order by b.bookId")
+    Stream<BookEntityToDto> streamAll();
+
+    // Row lock that serialises stock holds on one book, the holds themselves live in STOCK_HOLD_TBL
+    @Query(value = "select book_quantity from BOOK_TBL where book_id = :bookId for update", nativeQuery = true)
+    Optional<Integer> lockStock(@Param("bookId") Long bookId);
+
+    // Bulk import matches incoming rows on name and author ignoring case and surrounding spaces,
+    // the names are passed trimmed and lower-cased and the author is compared by the caller
+    @Query("select b from Book b where lower(trim(b.bookName)) in :bookNames")
+    List<Book> findByNormalisedBookNameIn(@Param("bookNames") Collection<String> bookNames);
 }
@@ -0,0 +1,51 @@
+package com.example.repo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface BookStockRepo {
+    /**
+     * Takes the requested quantities out of stock with one conditional UPDATE per book, sent as a single JDBC batch.
+     * A book is only decremented when it still has enough units beyond what other carts hold, so concurrent buyers can never oversell.
+     * Must run inside the caller's transaction, which is expected to roll back when anything is returned.
+     * Striped books are never decremented here and come back as unavailable, see decrementStripedStock.
+     *
+     * @param quantitiesByBookId the number of units to take per book ID
+     * @return the IDs of the books that did not have enough stock, empty when every line was reserved
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantitiesByBookId);
+
+    /**
+     * Same as decrementStock for books whose stock is split over stripes. Each book is taken from one stripe that has
+     * enough units and is not locked by another checkout, so parallel buyers of the same title do not wait for each other.
+     * Only when no such stripe exists are all stripes of the book locked and the units taken from several of them.
+     * Cart holds are not applied to striped books.
+     *
+     * @param quantitiesByBookId the number of units to take per book ID
+     * @return the IDs of the books that did not have enough stock, or are not striped
+     */
+    List<Long> decrementStripedStock(Map<Long, Integer> quantitiesByBookId);
+
+    /**
+     * Locks every stripe of a book, waiting for checkouts that are still taking units from them, and adds them up.
+     * Must run inside the caller's transaction, so the total cannot change before the stripes are replaced.
+     *
+     * @return the units left in the stripes, empty when the book is not striped
+     */
+    Optional<Integer> lockStripedStock(Long bookId);
+
+    /**
+     * Spreads quantity units of a book evenly over the given number of stripes, replacing whatever stripes it had,
+     * and sets bookQuantity to the total. Zero stripes turns striping off and leaves the units in bookQuantity.
+     * Must run inside the caller's transaction, after locking the book.
+     */
+    void splitStock(Long bookId, int stripes, int quantity);
+
+    /**
+     * Copies the stripe totals of striped books into bookQuantity wherever it drifted, for pages and cart checks.
+     *
+     * @return the IDs of the books that changed
+     */
+    List<Long> refreshStripedTotals();
+}
@@ -0,0 +1,178 @@
+package com.example.repo;
+
+import com.example.entity.Book;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+public class BookStockRepoImpl implements BookStockRepo {
+    // Units held for other carts are not for sale, the buyer's own holds are released before this runs.
+    // Bumps the version too, an admin edit of the same book that read the old quantity then fails and is retried
+    private static final String DECREMENT_SQL = "update BOOK_TBL b set book_quantity = book_quantity - ?, version = version + 1 where book_id = ? " +
+            "and stock_stripes = 0 and book_quantity - (select coalesce(sum(h.quantity), 0) from STOCK_HOLD_TBL h where h.book_id = b.book_id and h.expires_at > ?) >= ?";
+
+    // Walks the stripes in key order from a random start and stops at the first free one, so only that row is locked
+    private static final String FREE_STRIPE_FROM_SQL = "select stripe_no from BOOK_STOCK_STRIPE_TBL where book_id = ? and stripe_no >= ? and quantity >= ? " +
+            "order by stripe_no limit 1 for update skip locked";
+    private static final String FREE_STRIPE_BEFORE_SQL = "select stripe_no from BOOK_STOCK_STRIPE_TBL where book_id = ? and stripe_no < ? and quantity >= ? " +
+            "order by stripe_no limit 1 for update skip locked";
+    private static final String ALL_STRIPES_SQL = "select stripe_no, quantity from BOOK_STOCK_STRIPE_TBL where book_id = ? order by stripe_no for update";
+    private static final String TAKE_FROM_STRIPE_SQL = "update BOOK_STOCK_STRIPE_TBL set quantity = quantity - ? where book_id = ? and stripe_no = ?";
+    private static final String INSERT_STRIPE_SQL = "insert into BOOK_STOCK_STRIPE_TBL (book_id, stripe_no, quantity) values (?, ?, ?)";
+    private static final String STRIPED_TOTALS_SQL = "select b.book_id, s.total from BOOK_TBL b " +
+            "join (select book_id, sum(quantity) as total from BOOK_STOCK_STRIPE_TBL group by book_id) s on s.book_id = b.book_id " +
+            "where b.stock_stripes > 0 and b.book_quantity <> s.total";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public BookStockRepoImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantitiesByBookId) {
+        if (quantitiesByBookId.isEmpty()) {
+            return List.of();
+        }
+        // Always lock rows in ascending ID order so two orders sharing books cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantitiesByBookId).entrySet());
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (Map.Entry<Long, Integer> line : lines) {
+            args.add(new Object[]{line.getValue(), line.getKey(), now, line.getValue()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        evictFromSecondLevelCache(quantitiesByBookId.keySet());
+        List<Long> unavailable = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                unavailable.add(lines.get(i).getKey());
+            }
+        }
+        return unavailable;
+    }
+
+    @Override
+    public List<Long> decrementStripedStock(Map<Long, Integer> quantitiesByBookId) {
+        if (quantitiesByBookId.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> stripesByBookId = stripeCounts(quantitiesByBookId.keySet());
+        List<Long> unavailable = new ArrayList<>();
+        // Ascending IDs like the plain books, which a checkout always decrements first, so lock order stays the same everywhere
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByBookId).entrySet()) {
+            int stripes = stripesByBookId.getOrDefault(line.getKey(), 0);
+            if (stripes == 0 || !(takeFromOneStripe(line.getKey(), line.getValue(), stripes) || takeFromAllStripes(line.getKey(), line.getValue()))) {
+                unavailable.add(line.getKey());
+            }
+        }
+        return unavailable;
+    }
+
+    @Override
+    public Optional<Integer> lockStripedStock(Long bookId) {
+        List<Integer> stripes = jdbcTemplate.query(ALL_STRIPES_SQL, (rs, rowNum) -> rs.getInt(2), bookId);
+        return stripes.isEmpty() ? Optional.empty() : Optional.of(stripes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Override
+    public void splitStock(Long bookId, int stripes, int quantity) {
+        jdbcTemplate.update("delete from BOOK_STOCK_STRIPE_TBL where book_id = ?", bookId);
+        if (stripes > 0) {
+            List<Object[]> rows = new ArrayList<>(stripes);
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                rows.add(new Object[]{bookId, stripe, quantity / stripes + (stripe < quantity % stripes ? 1 : 0)});
+            }
+            jdbcTemplate.batchUpdate(INSERT_STRIPE_SQL, rows);
+        }
+        jdbcTemplate.update("update BOOK_TBL set book_quantity = ?, stock_stripes = ?, version = version + 1 where book_id = ?", quantity, stripes, bookId);
+        evictFromSecondLevelCache(List.of(bookId));
+    }
+
+    @Override
+    public List<Long> refreshStripedTotals() {
+        List<Object[]> drifted = jdbcTemplate.query(STRIPED_TOTALS_SQL, (rs, rowNum) -> new Object[]{rs.getInt(2), rs.getLong(1)});
+        if (drifted.isEmpty()) {
+            return List.of();
+        }
+        jdbcTemplate.batchUpdate("update BOOK_TBL set book_quantity = ?, version = version + 1 where book_id = ? and stock_stripes > 0", drifted);
+        List<Long> bookIds = drifted.stream().map(row -> (Long) row[1]).toList();
+        evictFromSecondLevelCache(bookIds);
+        return bookIds;
+    }
+
+    // A plain read, striping is switched under the book's row lock and a stale answer only makes the decrement find nothing
+    private Map<Long, Integer> stripeCounts(Collection<Long> bookIds) {
+        String placeholders = bookIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("select book_id, stock_stripes from BOOK_TBL where book_id in (" + placeholders + ")",
+                rs -> { counts.put(rs.getLong(1), rs.getInt(2)); }, bookIds.toArray());
+        return counts;
+    }
+
+    private boolean takeFromOneStripe(Long bookId, int quantity, int stripes) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        List<Integer> free = jdbcTemplate.queryForList(FREE_STRIPE_FROM_SQL, Integer.class, bookId, start, quantity);
+        if (free.isEmpty() && start > 0) {
+            free = jdbcTemplate.queryForList(FREE_STRIPE_BEFORE_SQL, Integer.class, bookId, start, quantity);
+        }
+        if (free.isEmpty()) {
+            return false;
+        }
+        jdbcTemplate.update(TAKE_FROM_STRIPE_SQL, quantity, bookId, free.get(0));
+        return true;
+    }
+
+    // No single free stripe has enough: wait for every stripe of the book, in order, and take the units from as many as needed
+    private boolean takeFromAllStripes(Long bookId, int quantity) {
+        List<int[]> stripes = jdbcTemplate.query(ALL_STRIPES_SQL, (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)}, bookId);
+        if (stripes.stream().mapToLong(stripe -> stripe[1]).sum() < quantity) {
+            return false;
+        }
+        List<Object[]> takes = new ArrayList<>();
+        int remaining = quantity;
+        for (int[] stripe : stripes) {
+            if (remaining == 0) {
+                break;
+            }
+            int take = Math.min(stripe[1], remaining);
+            if (take > 0) {
+                takes.add(new Object[]{take, bookId, stripe[0]});
+                remaining -= take;
+            }
+        }
+        jdbcTemplate.batchUpdate(TAKE_FROM_STRIPE_SQL, takes);
+        return true;
+    }
+
+    // Plain JDBC bypasses Hibernate, so the cached Book rows are dropped by hand: now, and again after commit
+    // in case a concurrent reader cached the old quantity in between
+    private void evictFromSecondLevelCache(Collection<Long> bookIds) {
+        Cache cache = entityManagerFactory.getCache();
+        List<Long> changed = new ArrayList<>(bookIds);
+        changed.forEach(bookId -> cache.evict(Book.class, bookId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    changed.forEach(bookId -> cache.evict(Book.class, bookId));
+                }
+            });
+        }
+    }
+}
@@ -1,14 +1,76 @@
 package com.example.repo;
 
+import com.example.dto.CartLineDto;
 import com.example.entity.Cart;
 import com.example.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CartRepo extends JpaRepository<Cart, Long> {
     List<Cart> findByUser(User user);
+
+    // Loads the cart lines together with their user and book in one round trip
+    @Query("select c from Cart c join fetch c.user join fetch c.book where c.user.userId = :userId")
+    List<Cart> findAllByUserIdWithBook(@Param("userId") Long userId);
+
+    // The same for several users at once, for a batch of orders
+    @Query("select c from Cart c join fetch c.user join fetch c.book where c.user.userId in :userIds")
+    List<Cart> findAllByUserIdInWithBook(@Param("userIds") Collection<Long> userIds);
+
+    @Query("select c from Cart c join fetch c.user join fetch c.book")
+    List<Cart> findAllWithUserAndBook();
+
+    // Just ids and quantities, what the write-behind cart store keeps in memory
+    @Query("select new com.example.dto.CartLineDto(c.cartId, c.book.bookId, c.cartQuantity) from Cart c where c.user.userId = :userId")
+    List<CartLineDto> findLinesByUserId(@Param("userId") Long userId);
+
+    // Adds to an existing line in a single UPDATE, returns 0 when there is no line or it would exceed maxQuantity.
+    // totalPrice is assigned first because MySQL evaluates SET left to right with the new values.
+    // The version is bumped like an entity update would, so a line read before this fails its own save
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Cart c set c.totalPrice = (c.cartQuantity + :quantity) * :unitPrice, c.cartQuantity = c.cartQuantity + :quantity, c.version = c.version + 1 " +
+            "where c.user.userId = :userId and c.book.bookId = :bookId and c.cartQuantity + :quantity <= :maxQuantity")
+    int incrementQuantity(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("quantity") int quantity,
+                          @Param("unitPrice") double unitPrice, @Param("maxQuantity") int maxQuantity);
+
+    boolean existsByUserUserIdAndBookBookId(Long userId, Long bookId);
+
+    boolean existsByUserUserId(Long userId);
+
+    @Query("select c.cartQuantity from Cart c where c.user.userId = :userId and c.book.bookId = :bookId")
+    Optional<Integer> findQuantity(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    @Query("select c.book.bookId from Cart c where c.cartId = :cartId and c.user.userId = :userId")
+    Optional<Long> findBookId(@Param("cartId") Long cartId, @Param("userId") Long userId);
+
+    // Single-statement deletes, each returns the number of cart lines removed
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Cart c where c.user.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Cart c where c.cartId = :cartId and c.user.userId = :userId")
+    int deleteByCartIdAndUserId(@Param("cartId") Long cartId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Cart c where c.cartId in :cartIds and c.user.userId = :userId")
+    int deleteAllByCartIdInAndUserId(@Param("cartIds") Collection<Long> cartIds, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Cart c where c.cartId in :cartIds")
+    int deleteAllByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
 }
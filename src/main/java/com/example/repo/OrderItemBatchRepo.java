@@ -0,0 +1,26 @@
+package com.example.repo;
+
+import com.example.entity.OrderItem;
+
+import java.util.List;
+import java.util.Map;
+
+public interface OrderItemBatchRepo {
+    /**
+     * Inserts all lines of an order as a single JDBC batch. IDENTITY keys stop Hibernate from batching inserts,
+     * so the lines are written with plain JDBC and the caller keeps the entities it passed in, each given its
+     * generated ID. With an ID they count as detached rather than transient, so a managed order may hold them
+     * without reading the lines back. Must run inside the transaction that inserted the order.
+     *
+     * @param orderId the ID of the already inserted order
+     * @param items   the lines to insert, their orderId and orderItemId are set
+     */
+    void insertAll(Long orderId, List<OrderItem> items);
+
+    /**
+     * Inserts the lines of several orders as a single JDBC batch, same rules as insertAll for one order.
+     *
+     * @param itemsByOrderId the lines to insert keyed by the ID of their already inserted order
+     */
+    void insertAll(Map<Long, List<OrderItem>> itemsByOrderId);
+}
@@ -0,0 +1,67 @@
+package com.example.repo;
+
+import com.example.entity.OrderItem;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class OrderItemBatchRepoImpl implements OrderItemBatchRepo {
+    private static final String INSERT_SQL = "insert into ORDER_ITEM_TBL (order_id, book_id, book_name, quantity, unit_price) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemBatchRepoImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(Long orderId, List<OrderItem> items) {
+        insertAll(Map.of(orderId, items));
+    }
+
+    @Override
+    public void insertAll(Map<Long, List<OrderItem>> itemsByOrderId) {
+        List<OrderItem> rows = new ArrayList<>();
+        itemsByOrderId.forEach((orderId, items) -> {
+            for (OrderItem item : items) {
+                item.setOrderId(orderId);
+                rows.add(item);
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OrderItem item = rows.get(i);
+                        ps.setLong(1, item.getOrderId());
+                        ps.setObject(2, item.getBookId(), Types.BIGINT);
+                        ps.setString(3, item.getBookName());
+                        ps.setObject(4, item.getQuantity(), Types.INTEGER);
+                        ps.setObject(5, item.getUnitPrice(), Types.DOUBLE);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        // Keys come back in insert order, one per row
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setOrderItemId(((Number) keyList.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
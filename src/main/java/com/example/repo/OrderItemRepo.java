@@ -0,0 +1,13 @@
+package com.example.repo;
+
+import com.example.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderItemRepo extends JpaRepository<OrderItem, Long>, OrderItemBatchRepo {
+
+    List<OrderItem> findByOrderId(Long orderId);
+}
@@ -1,11 +1,31 @@
 package com.example.repo;
 
+import com.example.dto.OrderSummaryDto;
 import com.example.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface OrderRepo extends JpaRepository<Order, Long> {
+
+    // Keyset page of order summaries, newest first; a null parameter switches its filter off
+    @Query("select new com.example.dto.OrderSummaryDto(o.orderId, o.orderDate, o.orderPrice, o.orderQuantity, o.cancelOrder, o.user.userId) " +
+            "from Order o where o.orderId < :beforeOrderId " +
+            "and (:cancelled is null or o.cancelOrder = :cancelled) " +
+            "and (:userId is null or o.user.userId = :userId) " +
+            "and (:fromDate is null or o.orderDate >= :fromDate) " +
+            "and (:toDate is null or o.orderDate <= :toDate) " +
+            "order by o.orderId desc")
+    List<OrderSummaryDto> findSummariesBefore(@Param("beforeOrderId") Long beforeOrderId,
+                                              @Param("cancelled") Boolean cancelled,
+                                              @Param("userId") Long userId,
+                                              @Param("fromDate") LocalDate fromDate,
+                                              @Param("toDate") LocalDate toDate,
+                                              Limit limit);
 }
@@ -0,0 +1,37 @@
+package com.example.repo;
+
+import com.example.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepo extends JpaRepository<OutboxEvent, Long> {
+    // Locks one batch of due events until the transaction ends. Rows another relay already holds are skipped,
+    // so several instances share the table without waiting on each other or dispatching an event twice.
+    // No ORDER BY: a sort reads, and locks, every due row before the limit applies. Walking the
+    // (status, event_id, available_at) index returns the oldest events first and locks only the batch
+    @Query(value = "select * from OUTBOX_EVENT_TBL where status = 'PENDING' and available_at <= :now " +
+            "limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Moves claimed events out of every relay's reach until the lease ends, so no row stays locked while handlers run
+    @Modifying
+    @Query("update OutboxEvent e set e.availableAt = :until where e.eventId in :eventIds")
+    int lease(@Param("eventIds") Collection<Long> eventIds, @Param("until") LocalDateTime until);
+
+    // A keyed update rather than a merge, an event another relay already took over and deleted stays deleted
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = :attempts, e.lastError = :lastError, e.status = :status, e.availableAt = :availableAt " +
+            "where e.eventId = :eventId")
+    int reschedule(@Param("eventId") Long eventId, @Param("attempts") int attempts, @Param("lastError") String lastError,
+                   @Param("status") String status, @Param("availableAt") LocalDateTime availableAt);
+
+    long countByStatus(String status);
+}
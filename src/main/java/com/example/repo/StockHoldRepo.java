@@ -0,0 +1,43 @@
+package com.example.repo;
+
+import com.example.entity.StockHold;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockHoldRepo extends JpaRepository<StockHold, Long> {
+    Optional<StockHold> findByUserIdAndBookId(Long userId, Long bookId);
+
+    @Query("select coalesce(sum(h.quantity), 0) from StockHold h where h.bookId = :bookId and h.expiresAt > :now")
+    long sumActiveHolds(@Param("bookId") Long bookId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from StockHold h where h.userId = :userId and h.bookId = :bookId")
+    int deleteByUserIdAndBookId(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from StockHold h where h.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from StockHold h where h.userId in :userIds")
+    int deleteAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Sweeper: one batch of expired holds, oldest first
+    @Query("select h.holdId from StockHold h where h.expiresAt <= :now order by h.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // Re-checks expiry, a hold renewed after it was selected survives
+    @Modifying
+    @Query("delete from StockHold h where h.holdId in :holdIds and h.expiresAt <= :now")
+    int deleteExpired(@Param("holdIds") Collection<Long> holdIds, @Param("now") LocalDateTime now);
+}
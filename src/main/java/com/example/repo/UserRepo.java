@@ -1,13 +1,18 @@
 package com.example.repo;
 
 import com.example.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepo extends JpaRepository<User,Long> {
+    // Served from the query cache until USER_TBL changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
     Optional<User> findByEmailAndPassword(String email, String password);
@@ -0,0 +1,69 @@
+package com.example.retry;
+
+/**
+ * ConflictRetryAspect.java
+ * Retries methods annotated with @RetryOnConflict when a versioned Book or Cart row was changed between read and write,
+ * or when the database picked the call as the loser of a deadlock or lock wait.
+ * Attempts are bounded and spaced by an exponential backoff with full jitter, so writers that collided once do not
+ * collide again in lockstep. When every attempt lost, the caller gets a CustomiseException asking to try again.
+ * Runs ahead of the transaction and metrics advice: each attempt gets a fresh transaction and shows up in the
+ * service metrics, where lost attempts carry the ObjectOptimisticLockingFailureException tag.
+ */
+
+import com.example.exception.CustomiseException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public ConflictRetryAspect(@Value("${bookstore.retry.max-attempts:4}") int maxAttempts,
+                               @Value("${bookstore.retry.initial-backoff-ms:5}") long initialBackoffMs,
+                               @Value("${bookstore.retry.max-backoff-ms:100}") long maxBackoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    @Around("@annotation(com.example.retry.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new CustomiseException("Updated by Another Request, Please Try Again");
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    // Sleeps a random time up to initialBackoffMs * 2^(attempt - 1), capped at maxBackoffMs
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomiseException("Updated by Another Request, Please Try Again");
+        }
+    }
+}
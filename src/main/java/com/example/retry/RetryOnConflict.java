@@ -0,0 +1,19 @@
+package com.example.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated service method again when it loses an optimistic lock (a @Version check) to a concurrent write,
+ * or a deadlock or lock wait to another transaction.
+ * The method must be safe to repeat: it reads the row again on every attempt and must not have started its own
+ * transaction, see ConflictRetryAspect.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,218 @@
+package com.example.search;
+
+/**
+ * BookSearchIndex.java
+ * In-memory inverted index over book name, author and description, ranked with BM25.
+ * It is built from the database once the application is ready and then kept current
+ * by BookServiceImpl on every add, update and delete, so searches never scan BOOK_TBL.
+ */
+
+import com.example.dto.BookEntityToDto;
+import com.example.repo.BookRepo;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Component
+public class BookSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // A hit in the title counts more than one in the author, which counts more than one in the description
+    private static final int NAME_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "by", "for", "in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+    private final BookRepo bookRepo;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (bookId -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // bookId -> weighted term frequencies of that book, kept so a book can be removed without a full scan
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    public BookSearchIndex(BookRepo bookRepo) {
+        this.bookRepo = bookRepo;
+    }
+
+    /**
+     * Loads every book into the index. Runs once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+            try (Stream<BookEntityToDto> books = bookRepo.streamAll()) {
+                books.forEach(this::addDocument);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book to the index, replacing any earlier version of it.
+     *
+     * @param book the book to index
+     */
+    public void index(BookEntityToDto book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getBookId());
+            addDocument(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param bookId the ID of the book to remove
+     */
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books that match any term of the query, best match first.
+     *
+     * @param query  the free-text query
+     * @param offset the number of ranked hits to skip
+     * @param limit  the maximum number of hits to return
+     * @return the total number of matching books and the requested slice of ranked book IDs
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchHits(0, List.of());
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                    double tf = entry.getValue();
+                    double length = documentLengths.get(entry.getKey());
+                    double norm = tf + K1 * (1 - B + B * length / averageLength);
+                    scores.merge(entry.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new SearchHits(scores.size(), topHits(scores, offset, limit));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case letter/digit terms, dropping stop words and single characters.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private void addDocument(BookEntityToDto book) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addField(frequencies, book.getBookName(), NAME_WEIGHT);
+        addField(frequencies, book.getBookAuthor(), AUTHOR_WEIGHT);
+        addField(frequencies, book.getBookDescription(), DESCRIPTION_WEIGHT);
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        documents.put(book.getBookId(), frequencies);
+        documentLengths.put(book.getBookId(), length);
+        totalLength += length;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(book.getBookId(), entry.getValue());
+        }
+    }
+
+    private void removeDocument(Long bookId) {
+        Map<String, Integer> frequencies = documents.remove(bookId);
+        if (frequencies == null) {
+            return;
+        }
+        totalLength -= documentLengths.remove(bookId);
+        for (String term : frequencies.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(bookId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addField(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private static List<Long> topHits(Map<Long, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        // Keep only the best offset + limit hits instead of sorting every match
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(byScore);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        }
+        List<Long> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+    }
+
+    public record SearchHits(int total, List<Long> bookIds) {
+    }
+}
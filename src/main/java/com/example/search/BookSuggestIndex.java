@@ -0,0 +1,318 @@
+package com.example.search;
+
+/**
+ * BookSuggestIndex.java
+ * Prefix index over book titles and authors for search-as-you-type suggestions.
+ * Keys are normalised phrases kept in a sorted skip list, so a prefix lookup is a range scan
+ * starting at the first key >= prefix. Every word start of a title is indexed as well,
+ * so "potter" finds "Harry Potter". Matches are ranked by a popularity counter that
+ * BookServiceImpl and CartServiceImpl bump on product views and cart adds.
+ * Short prefixes match too many keys to rank on every keystroke, so each one keeps its suggestions
+ * in a set ordered by popularity and a lookup reads the first few of them.
+ */
+
+import com.example.dto.BookEntityToDto;
+import com.example.repo.BookRepo;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+@Component
+public class BookSuggestIndex {
+    public static final String TYPE_TITLE = "TITLE";
+    public static final String TYPE_AUTHOR = "AUTHOR";
+
+    // Prefixes up to this length are served from their ranked sets, longer ones match few enough keys to scan
+    private static final int RANKED_PREFIX_LENGTH = 3;
+    // Only the first few words of a title start their own key, long subtitles add little
+    private static final int MAX_WORD_STARTS = 6;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final Comparator<Ranked> RANKING = Comparator.comparingLong(Ranked::popularity).reversed()
+            .thenComparing(ranked -> ranked.suggestion().text())
+            .thenComparing(ranked -> ranked.suggestion().type())
+            .thenComparing(ranked -> ranked.suggestion().bookId());
+
+    private final BookRepo bookRepo;
+    private final ConcurrentSkipListMap<String, Suggestion> entries = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<String>> keysByBook = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<Ranked>> rankedByPrefix = new ConcurrentHashMap<>();
+    // Every change to a book's keys or popularity runs inside popularity.compute, which serialises them per book
+    private final ConcurrentHashMap<Long, Long> popularity = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public BookSuggestIndex(BookRepo bookRepo) {
+        this.bookRepo = bookRepo;
+    }
+
+    /**
+     * Loads every book title and author into the index. Runs once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            entries.clear();
+            keysByBook.clear();
+            rankedByPrefix.clear();
+            try (Stream<BookEntityToDto> books = bookRepo.streamAll()) {
+                books.forEach(book -> popularity.compute(book.getBookId(), (id, current) -> {
+                    addBook(book, valueOf(current));
+                    return current;
+                }));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a book, replacing the keys of any earlier version of it.
+     *
+     * @param book the book to index
+     */
+    public void index(BookEntityToDto book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            popularity.compute(book.getBookId(), (id, current) -> {
+                removeBook(id, valueOf(current));
+                addBook(book, valueOf(current));
+                return current;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all keys of a book.
+     *
+     * @param bookId the ID of the book
+     */
+    public void remove(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            popularity.compute(bookId, (id, current) -> {
+                removeBook(id, valueOf(current));
+                return null;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds weight to a book's popularity, used to rank suggestions.
+     *
+     * @param bookId the ID of the book
+     * @param weight how much the interaction counts
+     */
+    public void recordPopularity(Long bookId, long weight) {
+        if (bookId == null) {
+            return;
+        }
+        popularity.compute(bookId, (id, current) -> {
+            List<String> keys = keysByBook.get(id);
+            if (keys == null) {
+                return current;
+            }
+            long before = valueOf(current);
+            long after = before + weight;
+            for (String key : keys) {
+                Suggestion suggestion = entries.get(key);
+                for (String prefix : rankedPrefixes(key)) {
+                    Set<Ranked> ranked = rankedByPrefix.get(prefix);
+                    if (suggestion != null && ranked != null) {
+                        ranked.remove(new Ranked(before, suggestion));
+                        ranked.add(new Ranked(after, suggestion));
+                    }
+                }
+            }
+            return after;
+        });
+    }
+
+    /**
+     * Returns up to limit distinct suggestions whose title, title word or author starts with the prefix,
+     * most popular first.
+     *
+     * @param prefix what the user has typed so far
+     * @param limit  the maximum number of suggestions
+     * @return the suggestions, best first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalised = normalise(prefix);
+        if (normalised.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (normalised.length() <= RANKED_PREFIX_LENGTH) {
+            Set<Ranked> ranked = rankedByPrefix.get(normalised);
+            if (ranked == null) {
+                return List.of();
+            }
+            // The set holds one entry per distinct suggestion, so the first ones are the answer
+            return ranked.stream().limit(limit).map(Ranked::suggestion).toList();
+        }
+        ConcurrentNavigableMap<String, Suggestion> range = entries.subMap(normalised, true, normalised + Character.MAX_VALUE, false);
+        Map<String, Suggestion> distinct = new HashMap<>();
+        for (Suggestion suggestion : range.values()) {
+            // A title matched through two different word starts is still one suggestion
+            distinct.putIfAbsent(suggestion.type() + KEY_SEPARATOR + suggestion.bookId() + KEY_SEPARATOR + suggestion.text(), suggestion);
+        }
+        Comparator<Suggestion> byPopularity = Comparator.comparingLong((Suggestion s) -> popularityOf(s.bookId()))
+                .thenComparing(Suggestion::text, Comparator.reverseOrder());
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(byPopularity);
+        for (Suggestion suggestion : distinct.values()) {
+            best.offer(suggestion);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Suggestion> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * Rough heap usage of the index, for sizing it against large catalogs.
+     * Per key it counts the skip list node and its share of index levels, the key string and the suggestion record;
+     * display texts are shared between the keys of one book and counted once per book. Each entry of a ranked
+     * prefix set adds a node and a Ranked record that points at an existing suggestion.
+     */
+    public Map<String, Long> footprint() {
+        long keys = 0;
+        long keyBytes = 0;
+        for (String key : entries.keySet()) {
+            keys++;
+            keyBytes += stringBytes(key);
+        }
+        long textBytes = 0;
+        Set<String> seenTexts = new HashSet<>();
+        for (Suggestion suggestion : entries.values()) {
+            if (seenTexts.add(suggestion.bookId() + suggestion.text())) {
+                textBytes += stringBytes(suggestion.text());
+            }
+        }
+        long nodeBytes = keys * (24 + 16 + 24);
+        long recordBytes = keys * 24;
+        long rankedEntries = 0;
+        for (Set<Ranked> ranked : rankedByPrefix.values()) {
+            rankedEntries += ranked.size();
+        }
+        nodeBytes += rankedEntries * (24 + 16);
+        recordBytes += rankedEntries * 24;
+        long bookBytes = keysByBook.size() * 80L + popularity.size() * 64L;
+        Map<String, Long> report = new LinkedHashMap<>();
+        report.put("books", (long) keysByBook.size());
+        report.put("keys", keys);
+        report.put("rankedEntries", rankedEntries);
+        report.put("keyBytes", keyBytes);
+        report.put("textBytes", textBytes);
+        report.put("structureBytes", nodeBytes + recordBytes + bookBytes);
+        report.put("estimatedTotalBytes", keyBytes + textBytes + nodeBytes + recordBytes + bookBytes);
+        return report;
+    }
+
+    static String normalise(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private void addBook(BookEntityToDto book, long bookPopularity) {
+        List<String> keys = new ArrayList<>();
+        String title = normalise(book.getBookName());
+        if (!title.isEmpty()) {
+            String[] words = title.split(" ");
+            int offset = 0;
+            for (int i = 0; i < words.length && i < MAX_WORD_STARTS; i++) {
+                keys.add(put(title.substring(offset), book.getBookId(), book.getBookName(), TYPE_TITLE));
+                offset += words[i].length() + 1;
+            }
+        }
+        String author = normalise(book.getBookAuthor());
+        if (!author.isEmpty()) {
+            keys.add(put(author, book.getBookId(), book.getBookAuthor(), TYPE_AUTHOR));
+        }
+        keysByBook.put(book.getBookId(), keys);
+        for (String key : keys) {
+            Ranked ranked = new Ranked(bookPopularity, entries.get(key));
+            for (String prefix : rankedPrefixes(key)) {
+                rankedByPrefix.computeIfAbsent(prefix, p -> new ConcurrentSkipListSet<>(RANKING)).add(ranked);
+            }
+        }
+    }
+
+    private String put(String phrase, Long bookId, String text, String type) {
+        // The book ID and type keep keys unique when several books share a title or an author
+        String key = phrase + KEY_SEPARATOR + bookId + KEY_SEPARATOR + type;
+        entries.put(key, new Suggestion(bookId, text, type));
+        return key;
+    }
+
+    private void removeBook(Long bookId, long bookPopularity) {
+        List<String> keys = keysByBook.remove(bookId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Suggestion suggestion = entries.remove(key);
+            for (String prefix : rankedPrefixes(key)) {
+                Set<Ranked> ranked = rankedByPrefix.get(prefix);
+                if (suggestion != null && ranked != null) {
+                    ranked.remove(new Ranked(bookPopularity, suggestion));
+                }
+            }
+        }
+    }
+
+    private static List<String> rankedPrefixes(String key) {
+        String phrase = key.substring(0, key.indexOf(KEY_SEPARATOR));
+        List<String> prefixes = new ArrayList<>(RANKED_PREFIX_LENGTH);
+        for (int length = 1; length <= Math.min(RANKED_PREFIX_LENGTH, phrase.length()); length++) {
+            // Typed prefixes are trimmed, so one ending in a space is never looked up
+            if (phrase.charAt(length - 1) != ' ') {
+                prefixes.add(phrase.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    private long popularityOf(Long bookId) {
+        return popularity.getOrDefault(bookId, 0L);
+    }
+
+    private static long valueOf(Long popularity) {
+        return popularity == null ? 0 : popularity;
+    }
+
+    private static long stringBytes(String text) {
+        // String header + array header, Latin-1 compact strings store one byte per char
+        return 24 + 16 + text.length();
+    }
+
+    public record Suggestion(Long bookId, String text, String type) {
+    }
+
+    private record Ranked(long popularity, Suggestion suggestion) {
+    }
+}
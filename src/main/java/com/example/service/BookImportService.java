@@ -0,0 +1,12 @@
+package com.example.service;
+
+import com.example.dto.BookImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportResultDto importCsv(InputStream inputStream) throws IOException;
+
+    BookImportResultDto importNdjson(InputStream inputStream) throws IOException;
+}
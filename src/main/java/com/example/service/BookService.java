@@ -1,9 +1,14 @@
 package com.example.service;
 
 import com.example.dto.BookEntityToDto;
+import com.example.dto.BookPageDto;
+import com.example.dto.BookSearchResultDto;
+import com.example.dto.BookSuggestionDto;
 import com.example.dto.DtoToBookEntity;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookService {
     String addBook(DtoToBookEntity dtoToBookEntity);
@@ -12,7 +17,23 @@ public interface BookService {
 
     List<BookEntityToDto> allBooks();
 
+    BookPageDto booksPage(Long afterBookId, Integer size);
+
+    void streamAllBooks(Consumer<BookEntityToDto> consumer);
+
     BookEntityToDto getBook(Long bookId);
 
+    BookSearchResultDto searchBooks(String query, Integer page, Integer size);
+
+    List<BookSuggestionDto> suggestBooks(String prefix, Integer limit);
+
     String updateBook(Long bookId, DtoToBookEntity dtoToBookEntity);
+
+    String updateStockStripes(Long bookId, Integer stripes);
+
+    int refreshStripedStock();
+
+    Map<String, Long> cacheStats();
+
+    Map<String, Long> suggestStats();
 }
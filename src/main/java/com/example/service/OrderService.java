@@ -1,13 +1,18 @@
 package com.example.service;
 
 import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderFilterDto;
 import com.example.entity.Order;
 
+import java.util.Map;
+
 public interface OrderService {
     Order placeOrder(Long userId, DtoToAddressEntity dtoToAddressEntity);
 
+    Map<Long, Order> placeOrders(Map<Long, DtoToAddressEntity> addressesByUserId);
+
     String cancelOrder(Long userId, Long orderId);
 
-    Object getAllOrders(Long userId);
+    Object getAllOrders(OrderFilterDto filter);
 
 }
@@ -0,0 +1,15 @@
+package com.example.service;
+
+import com.example.entity.Order;
+
+import java.util.Collection;
+
+public interface OutboxService {
+    void orderPlaced(Order order);
+
+    void ordersPlaced(Collection<Order> orders);
+
+    void orderCancelled(Order order);
+
+    int relay();
+}
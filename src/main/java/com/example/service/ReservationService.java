@@ -0,0 +1,15 @@
+package com.example.service;
+
+import java.util.Collection;
+
+public interface ReservationService {
+    void hold(Long userId, Long bookId, int quantity);
+
+    void release(Long userId, Long bookId);
+
+    void releaseAll(Long userId);
+
+    void releaseAll(Collection<Long> userIds);
+
+    int sweepExpired();
+}
@@ -0,0 +1,338 @@
+package com.example.serviceImpl;
+
+/**
+ * BookImportServiceImpl.java
+ * Bulk catalog import from CSV or NDJSON. The input is read one record at a time and written in chunks,
+ * each chunk in its own transaction with one lookup query and JDBC-batched inserts and updates,
+ * so memory use stays flat however large the file is. Rows are matched on book name and author:
+ * a match is updated, anything else is added.
+ */
+
+import com.example.cache.BookCache;
+import com.example.dto.BookEntityToDto;
+import com.example.dto.BookImportErrorDto;
+import com.example.dto.BookImportResultDto;
+import com.example.dto.DtoToBookEntity;
+import com.example.entity.Book;
+import com.example.repo.BookRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.service.BookImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    static final int CHUNK_SIZE = 1_000;
+    private static final int CHUNK_ATTEMPTS = 3;
+    static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final List<String> REQUIRED_COLUMNS = List.of("bookName", "bookPrice", "bookQuantity");
+
+    private final BookRepo bookRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BookCache bookCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestIndex bookSuggestIndex;
+
+    public BookImportServiceImpl(BookRepo bookRepo, EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper, BookCache bookCache, BookSearchIndex bookSearchIndex,
+                                 BookSuggestIndex bookSuggestIndex) {
+        this.bookRepo = bookRepo;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.bookCache = bookCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookSuggestIndex = bookSuggestIndex;
+    }
+
+    @Override
+    public BookImportResultDto importCsv(InputStream inputStream) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return run.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+                run.reject(0, "Missing Column in Header : " + column);
+                return run.finish();
+            }
+        }
+        long row = 0;
+        List<String> record;
+        while ((record = readCsvRecord(reader)) != null) {
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                row--;
+                continue;
+            }
+            try {
+                DtoToBookEntity dto = new DtoToBookEntity();
+                dto.setBookName(column(record, columns, "bookName"));
+                dto.setBookAuthor(column(record, columns, "bookAuthor"));
+                dto.setBookDescription(column(record, columns, "bookDescription"));
+                dto.setBookLogoMultipart(column(record, columns, "bookLogoMultipart"));
+                String price = column(record, columns, "bookPrice");
+                String quantity = column(record, columns, "bookQuantity");
+                dto.setBookPrice(price == null ? null : Double.valueOf(price));
+                dto.setBookQuantity(quantity == null ? null : Integer.valueOf(quantity));
+                run.accept(row, dto);
+            } catch (NumberFormatException e) {
+                run.reject(row, "Invalid Number : " + e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    @Override
+    public BookImportResultDto importNdjson(InputStream inputStream) throws IOException {
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                run.accept(row, objectMapper.readValue(line, DtoToBookEntity.class));
+            } catch (JsonProcessingException e) {
+                run.reject(row, "Invalid JSON : " + e.getOriginalMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    private String validate(DtoToBookEntity dto) {
+        if (dto.getBookName() == null || dto.getBookName().isBlank()) {
+            return "Book Name is Required";
+        }
+        if (dto.getBookPrice() == null || dto.getBookPrice() < 0 || dto.getBookPrice().isNaN()) {
+            return "Enter Valid Price";
+        }
+        if (dto.getBookQuantity() == null || dto.getBookQuantity() < 0) {
+            return "Enter Valid Quantity";
+        }
+        return null;
+    }
+
+    /**
+     * Writes one chunk in its own transaction and returns how many rows were added and updated.
+     * A checkout that changes one of the books in between fails the version check, the chunk is then read and written again.
+     */
+    private int[] writeChunk(List<DtoToBookEntity> chunk) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return writeChunkOnce(chunk);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private int[] writeChunkOnce(List<DtoToBookEntity> chunk) {
+        List<BookEntityToDto> written = new ArrayList<>(chunk.size());
+        int[] counts = transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(CHUNK_SIZE);
+            Set<String> names = new HashSet<>();
+            chunk.forEach(dto -> names.add(normalise(dto.getBookName())));
+            Map<String, Book> existing = new HashMap<>();
+            for (Book book : bookRepo.findByNormalisedBookNameIn(names)) {
+                existing.putIfAbsent(key(book.getBookName(), book.getBookAuthor()), book);
+            }
+            int created = 0;
+            int updated = 0;
+            List<Book> books = new ArrayList<>(chunk.size());
+            for (DtoToBookEntity dto : chunk) {
+                Book book = existing.get(key(dto.getBookName(), dto.getBookAuthor()));
+                if (book == null) {
+                    book = new Book();
+                    book.setBookName(dto.getBookName());
+                    book.setBookAuthor(dto.getBookAuthor());
+                    entityManager.persist(book);
+                    // A later row of the same chunk with the same name and author updates this one
+                    existing.put(key(dto.getBookName(), dto.getBookAuthor()), book);
+                    created++;
+                } else {
+                    updated++;
+                }
+                book.setBookDescription(dto.getBookDescription());
+                book.setBookLogoMultipart(dto.getBookLogoMultipart());
+                book.setBookPrice(dto.getBookPrice());
+                book.setBookQuantity(dto.getBookQuantity());
+                books.add(book);
+            }
+            entityManager.flush();
+            // A striped book's stock lives in its stripes, the imported quantity is spread over them
+            for (Book book : new LinkedHashSet<>(books)) {
+                if (book.getStockStripes() > 0) {
+                    bookRepo.splitStock(book.getBookId(), book.getStockStripes(), book.getBookQuantity());
+                }
+            }
+            List<Long> bookIds = new ArrayList<>(books.size());
+            for (Book book : new LinkedHashSet<>(books)) {
+                bookIds.add(book.getBookId());
+                written.add(new BookEntityToDto(book.getBookId(), book.getBookName(), book.getBookAuthor(), book.getBookDescription(),
+                        book.getBookLogoMultipart(), book.getBookPrice(), book.getBookQuantity()));
+            }
+            bookCache.evictAfterCommit(bookIds);
+            entityManager.clear();
+            return new int[]{created, updated};
+        });
+        written.forEach(book -> {
+            bookSearchIndex.index(book);
+            bookSuggestIndex.index(book);
+        });
+        return counts;
+    }
+
+    private static String key(String bookName, String bookAuthor) {
+        return normalise(bookName) + '\u0000' + (bookAuthor == null ? "" : normalise(bookAuthor));
+    }
+
+    private static String normalise(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads one RFC 4180 record: comma separated, fields may be quoted, quotes inside are doubled
+     * and a quoted field may span lines. Returns null at the end of the input.
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Counters and the pending chunk of one import.
+     */
+    private class ImportRun {
+        private final List<Long> rows = new ArrayList<>(CHUNK_SIZE);
+        private final List<DtoToBookEntity> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<BookImportErrorDto> errors = new ArrayList<>();
+        private long totalRows;
+        private long created;
+        private long updated;
+        private long failed;
+
+        private void accept(long row, DtoToBookEntity dto) {
+            String error = validate(dto);
+            if (error != null) {
+                reject(row, error);
+                return;
+            }
+            totalRows++;
+            rows.add(row);
+            chunk.add(dto);
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void reject(long row, String message) {
+            if (row > 0) {
+                totalRows++;
+            }
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportErrorDto(row, message));
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                int[] counts = writeChunk(chunk);
+                created += counts[0];
+                updated += counts[1];
+            } catch (RuntimeException e) {
+                // The chunk rolled back as a whole, every row in it is reported
+                failed += rows.size();
+                for (Long row : rows) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new BookImportErrorDto(row, "Chunk NOT Saved : " + e.getMessage()));
+                    }
+                }
+            }
+            rows.clear();
+            chunk.clear();
+        }
+
+        private BookImportResultDto finish() {
+            flush();
+            return new BookImportResultDto(totalRows, created, updated, failed, errors, failed > errors.size());
+        }
+    }
+}
@@ -1,35 +1,71 @@
 package com.example.serviceImpl;
 
+import com.example.cache.BookCache;
 import com.example.dto.BookEntityToDto;
+import com.example.dto.BookPageDto;
+import com.example.dto.BookSearchResultDto;
+import com.example.dto.BookSuggestionDto;
 import com.example.dto.DtoToBookEntity;
 import com.example.entity.Book;
 import com.example.exception.CustomiseException;
 import com.example.repo.BookRepo;
+import com.example.retry.RetryOnConflict;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
 import com.example.service.BookService;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_SIZE = 20;
+    private static final int DEFAULT_SUGGEST_LIMIT = 10;
+    private static final int MAX_SUGGEST_LIMIT = 50;
+    private static final int MAX_STOCK_STRIPES = 64;
+
     private BookRepo bookRepo;
+    private BookCache bookCache;
+    private BookSearchIndex bookSearchIndex;
+    private BookSuggestIndex bookSuggestIndex;
 
-    public BookServiceImpl(BookRepo bookRepo) {
+    public BookServiceImpl(BookRepo bookRepo, BookCache bookCache, BookSearchIndex bookSearchIndex, BookSuggestIndex bookSuggestIndex) {
         this.bookRepo = bookRepo;
+        this.bookCache = bookCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookSuggestIndex = bookSuggestIndex;
     }
 
     @Override
     public String addBook(DtoToBookEntity dtoToBookEntity) {
         Book book = dtoToBookConverter(dtoToBookEntity);
         bookRepo.save(book);
+        bookCache.evict(book.getBookId());
+        BookEntityToDto added = bookToDtoConverter(book);
+        bookSearchIndex.index(added);
+        bookSuggestIndex.index(added);
         return "Book Added Successfully";
     }
 
     @Override
     public String deleteBook(Long bookId) {
         bookRepo.deleteById(bookId);
+        bookCache.evict(bookId);
+        bookSearchIndex.remove(bookId);
+        bookSuggestIndex.remove(bookId);
         return "Book Deleted Successfully";
     }
 
@@ -39,12 +75,57 @@ public class BookServiceImpl implements BookService {
         return list.stream().map(this::bookToDtoConverter).collect(Collectors.toList());
     }
 
+    @Override
+    public BookPageDto booksPage(Long afterBookId, Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        long cursor = afterBookId == null ? 0L : afterBookId;
+        // Ask for one extra row so the next cursor is only handed out when another page really exists
+        List<BookEntityToDto> books = bookRepo.findPageAfter(cursor, Limit.of(pageSize + 1));
+        Long nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            nextCursor = books.get(pageSize - 1).getBookId();
+        }
+        return new BookPageDto(books, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllBooks(Consumer<BookEntityToDto> consumer) {
+        try (Stream<BookEntityToDto> books = bookRepo.streamAll()) {
+            books.forEach(consumer);
+        }
+    }
+
+    @Override
+    public BookSearchResultDto searchBooks(String query, Integer page, Integer size) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_SEARCH_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        int pageNo = (page == null || page < 0) ? 0 : page;
+        int offset = (int) Math.min((long) pageNo * pageSize, Integer.MAX_VALUE - pageSize);
+        BookSearchIndex.SearchHits hits = bookSearchIndex.search(query, offset, pageSize);
+        Map<Long, BookEntityToDto> books = bookCache.getBooks(hits.bookIds());
+        List<BookEntityToDto> ranked = hits.bookIds().stream().map(books::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return new BookSearchResultDto(hits.total(), pageNo, pageSize, ranked);
+    }
+
+    @Override
+    public List<BookSuggestionDto> suggestBooks(String prefix, Integer limit) {
+        int max = (limit == null || limit <= 0) ? DEFAULT_SUGGEST_LIMIT : Math.min(limit, MAX_SUGGEST_LIMIT);
+        return bookSuggestIndex.suggest(prefix, max).stream()
+                .map(suggestion -> new BookSuggestionDto(suggestion.bookId(), suggestion.text(), suggestion.type()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public BookEntityToDto getBook(Long bookId) {
-        return bookToDtoConverter(bookRepo.findById(bookId).orElseThrow(() -> new CustomiseException("Invalid Book Id!!")));
+        BookEntityToDto book = bookCache.getBook(bookId).orElseThrow(() -> new CustomiseException("Invalid Book Id!!"));
+        bookSuggestIndex.recordPopularity(bookId, 1);
+        return book;
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public String updateBook(Long bookId, DtoToBookEntity dtoToBookEntity) {
         Optional<Book> optionalBook = bookRepo.findById(bookId);
         if (optionalBook.isPresent()) {
@@ -55,14 +136,70 @@ public class BookServiceImpl implements BookService {
 //            book.setBookDescription(bookConverter.getBookDescription());
 //            book.setBookLogoMultipart(bookConverter.getBookLogoMultipart());
             book.setBookPrice(bookConverter.getBookPrice());
-            book.setBookQuantity(bookConverter.getBookQuantity());
-            bookRepo.save(book);
+            if (book.getStockStripes() > 0) {
+                // The stripes hold the stock, the new quantity is spread over them again
+                bookRepo.saveAndFlush(book);
+                bookRepo.splitStock(bookId, book.getStockStripes(), bookConverter.getBookQuantity());
+            } else {
+                book.setBookQuantity(bookConverter.getBookQuantity());
+                bookRepo.saveAndFlush(book);
+            }
+            bookCache.evictAfterCommit(List.of(bookId));
+            BookEntityToDto updated = bookToDtoConverter(book);
+            updated.setBookQuantity(bookConverter.getBookQuantity());
+            // The indexes cannot roll back, they only see the change once it committed
+            afterCommit(() -> {
+                bookSearchIndex.index(updated);
+                bookSuggestIndex.index(updated);
+            });
             return "Book Updated Successfully";
         } else {
             return "Invalid Book Id!!";
         }
     }
 
+    /**
+     * Turns stock striping on for a hot book, changes its stripe count, or turns it off with 0.
+     * The current stock is carried over and spread evenly.
+     */
+    @Override
+    @Transactional
+    public String updateStockStripes(Long bookId, Integer stripes) {
+        if (stripes == null || stripes < 0 || stripes > MAX_STOCK_STRIPES) {
+            throw new CustomiseException("Enter Valid Stripe Count : 0 - " + MAX_STOCK_STRIPES);
+        }
+        Integer stock = bookRepo.lockStock(bookId).orElseThrow(() -> new CustomiseException("Invalid Book Id!!"));
+        // Checkouts of a striped book lock its stripes, not the book row, so the stripes are locked too before they are added up
+        int quantity = bookRepo.lockStripedStock(bookId).orElse(stock);
+        bookRepo.splitStock(bookId, stripes, quantity);
+        bookCache.evictAfterCommit(List.of(bookId));
+        return stripes == 0 ? "Stock Striping Turned Off for Book : " + bookId : "Stock of Book " + bookId + " Split Over " + stripes + " Stripes";
+    }
+
+    /**
+     * Brings the quantity shown for striped books back in line with their stripes.
+     * Checkouts only touch the stripes, this is what keeps book pages and cart checks roughly current.
+     *
+     * @return the number of books whose quantity changed
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.stock-stripes.refresh-interval-ms:1000}")
+    public int refreshStripedStock() {
+        List<Long> changed = bookRepo.refreshStripedTotals();
+        changed.forEach(bookCache::evict);
+        return changed.size();
+    }
+
+    @Override
+    public Map<String, Long> cacheStats() {
+        return bookCache.statsSnapshot();
+    }
+
+    @Override
+    public Map<String, Long> suggestStats() {
+        return bookSuggestIndex.footprint();
+    }
+
     private Book dtoToBookConverter(DtoToBookEntity dtoToBookEntity) {
         Book book = new Book();
         book.setBookName(dtoToBookEntity.getBookName());
@@ -74,7 +211,8 @@ public class BookServiceImpl implements BookService {
         return book;
     }
 
-    private BookEntityToDto bookToDtoConverter(Book book) {
+    // Package-private so the JMH benchmarks in src/jmh can call it
+    BookEntityToDto bookToDtoConverter(Book book) {
         BookEntityToDto bookEntityToDto = new BookEntityToDto();
         bookEntityToDto.setBookId(book.getBookId());
         bookEntityToDto.setBookName(book.getBookName());
@@ -85,4 +223,17 @@ public class BookServiceImpl implements BookService {
         bookEntityToDto.setBookQuantity(book.getBookQuantity());
         return bookEntityToDto;
     }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
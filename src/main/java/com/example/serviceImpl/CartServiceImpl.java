@@ -1,7 +1,11 @@
 package com.example.serviceImpl;
 
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
 import com.example.dto.BookDto;
+import com.example.dto.BookEntityToDto;
 import com.example.dto.CartEntityToDto;
+import com.example.dto.CartLineDto;
 import com.example.dto.DtoToCartEntity;
 import com.example.entity.Book;
 import com.example.entity.Cart;
@@ -10,13 +14,24 @@ import com.example.exception.CustomiseException;
 import com.example.repo.BookRepo;
 import com.example.repo.CartRepo;
 import com.example.repo.UserRepo;
+import com.example.retry.RetryOnConflict;
+import com.example.search.BookSuggestIndex;
 import com.example.service.CartService;
+import com.example.service.ReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,41 +42,131 @@ public class CartServiceImpl implements CartService {
     private BookRepo bookRepo;
     @Autowired
     private CartRepo cartRepo;
+    @Autowired
+    private BookCache bookCache;
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+    @Autowired
+    private CartStore cartStore;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
 
     @Override
+    // A checkout of the same cart locks book then cart rows, an add locks them the other way round and may lose a deadlock
+    @RetryOnConflict
     public String addToCart(Long userId, Long bookId, DtoToCartEntity dtoToCartEntity) {
-        Book book = bookRepo.findById(bookId).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId));
+        BookEntityToDto book = bookCache.getBook(bookId).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId));
         if (book.getBookQuantity() <= 0) {
             throw new CustomiseException("Book NOT Available : " + book.getBookName());
         }
-        User user = userRepo.findById(userId).orElseThrow(() -> new CustomiseException("User NOT Found with ID : " + userId));
         if (dtoToCartEntity.getCartQuantity() > book.getBookQuantity()) {
             throw new CustomiseException("Enter Valid Quantity!!    |   Available: " + book.getBookQuantity());
         }
-        Cart cart = dtoToCartConverter(dtoToCartEntity);
-        cart.setUser(user);
-        cart.setBook(book);
-        cart.setTotalPrice(dtoToCartEntity.getCartQuantity() * book.getBookPrice());
-        cartRepo.save(cart);
+        if (cartStore.isEnabled()) {
+            addThroughStore(userId, book, dtoToCartEntity.getCartQuantity());
+        } else {
+            upsertCartLine(userId, book, dtoToCartEntity.getCartQuantity());
+        }
+        // A cart add says more about demand than a page view
+        bookSuggestIndex.recordPopularity(bookId, 5);
         return "Book Added to Cart Successfully!!";
     }
 
     @Override
+    @RetryOnConflict
     public String addTooCart(Long userId, Long bookId) {
-        Book book = bookRepo.findById(bookId).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId));
+        BookEntityToDto book = bookCache.getBook(bookId).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId));
         if (book.getBookQuantity() <= 0) {
             throw new CustomiseException("Book NOT Available : " + book.getBookName());
         }
-        User user = userRepo.findById(userId).orElseThrow(() -> new CustomiseException("User NOT Found with ID : " + userId));
+        if (cartStore.isEnabled()) {
+            addThroughStore(userId, book, 1);
+        } else {
+            upsertCartLine(userId, book, 1);
+        }
+        bookSuggestIndex.recordPopularity(bookId, 5);
+        return "Book Added to Cart Successfully!!";
+    }
 
+    /**
+     * Adds the quantity to the user's line for the book, creating the line on the first add, and holds what the line then holds.
+     * Line and hold change in one transaction, so a rejected hold undoes the add and a failed add never leaves a raised hold.
+     * The unique (user, book) constraint settles two first adds racing each other, the loser starts over on the winner's line.
+     */
+    private void upsertCartLine(Long userId, BookEntityToDto book, int quantity) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> addToLine(userId, book, quantity, true));
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the line first and has committed it
+            transaction.executeWithoutResult(status -> addToLine(userId, book, quantity, false));
+        }
+    }
+
+    private void addToLine(Long userId, BookEntityToDto book, int quantity, boolean mayInsert) {
+        int lineQuantity;
+        // The update locks the line until commit, a second click waits here and then holds the sum of both
+        boolean added = cartRepo.incrementQuantity(userId, book.getBookId(), quantity, book.getBookPrice(), book.getBookQuantity()) > 0;
+        if (!added && mayInsert && !cartRepo.existsByUserUserIdAndBookBookId(userId, book.getBookId())) {
+            insertCartLine(userId, book, quantity);
+            lineQuantity = quantity;
+        } else {
+            // The line exists, either it was already full or another request created it after the first update
+            if (!added && cartRepo.incrementQuantity(userId, book.getBookId(), quantity, book.getBookPrice(), book.getBookQuantity()) == 0) {
+                throw new CustomiseException("Enter Valid Quantity!!    |   Available: " + book.getBookQuantity());
+            }
+            lineQuantity = cartRepo.findQuantity(userId, book.getBookId()).orElse(quantity);
+        }
+        // Throws when other carts already hold what is left, which rolls the add back
+        reservationService.hold(userId, book.getBookId(), lineQuantity);
+    }
+
+    /**
+     * Same as upsertCartLine with the cart store on: an existing line only changes in memory and is written by the next flush.
+     */
+    private void addThroughStore(Long userId, BookEntityToDto book, int quantity) {
+        IntConsumer holdUnits = units -> reservationService.hold(userId, book.getBookId(), units);
+        CartStore.Change change = cartStore.addToLine(userId, book.getBookId(), quantity, book.getBookQuantity(), holdUnits);
+        if (change == CartStore.Change.NO_LINE) {
+            change = cartStore.createLine(userId, book.getBookId(), quantity, book.getBookQuantity(), holdUnits, () -> insertCartLine(userId, book, quantity));
+        }
+        if (change == CartStore.Change.REJECTED) {
+            throw new CustomiseException("Enter Valid Quantity!!    |   Available: " + book.getBookQuantity());
+        }
+    }
+
+    private Cart insertCartLine(Long userId, BookEntityToDto book, int quantity) {
+        User user = userRepo.findById(userId).orElseThrow(() -> new CustomiseException("User NOT Found with ID : " + userId));
         Cart cart = new Cart();
         cart.setUser(user);
-        cart.setBook(book);
-        cart.setCartQuantity(1);
-        cart.setTotalPrice(book.getBookPrice());
-        cartRepo.save(cart);
-        return "Book Added to Cart Successfully!!";
+        cart.setBook(bookRepo.getReferenceById(book.getBookId()));
+        cart.setCartQuantity(quantity);
+        cart.setTotalPrice(quantity * book.getBookPrice());
+        return cartRepo.saveAndFlush(cart);
+    }
+
+    /**
+     * Changes a line's quantity in the cart store.
+     * @param keepInStock units the new quantity must leave in stock when it grows
+     */
+    private String changeThroughStore(long userId, Long cartId, int delta, int keepInStock) {
+        OptionalLong bookId = cartStore.bookIdOf(userId, cartId);
+        if (bookId.isEmpty()) {
+            throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
+        }
+        BookEntityToDto book = bookCache.getBook(bookId.getAsLong()).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId.getAsLong()));
+        CartStore.Change change = cartStore.changeLine(userId, cartId, delta, book.getBookQuantity() - keepInStock,
+                units -> reservationService.hold(userId, book.getBookId(), units));
+        if (change == CartStore.Change.NO_LINE) {
+            throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
+        }
+        if (change == CartStore.Change.REJECTED) {
+            throw new CustomiseException("Enter a Valid Quantity To Update Cart!! Available : " + book.getBookQuantity());
+        }
+        return "Cart Updated Successfully with Id : " + cartId;
     }
 
 
@@ -72,14 +177,11 @@ public class CartServiceImpl implements CartService {
             return "USER NOT FOUND TO DELETE CART!!";
         }
 
-        Optional<Cart> optionalCart = cartRepo.findById(cartId);
-        if (optionalCart.isPresent() && userId.equals(optionalCart.get().getUser().getUserId())) {
-            Cart cart = optionalCart.get();
-            cart.setUser(null);
-            cart.setBook(null);
-            cartRepo.save(cart);
-
-            cartRepo.deleteById(cart.getCartId());
+        Optional<Long> bookId = cartRepo.findBookId(cartId, userId);
+        // The owner is part of the WHERE clause, a cart id belonging to someone else deletes nothing
+        if (cartRepo.deleteByCartIdAndUserId(cartId, userId) > 0) {
+            cartStore.removeLine(userId, cartId);
+            bookId.ifPresent(id -> reservationService.release(userId, id));
             return "Remove From Cart Successfully";
         } else {
             return "Enter a Valid Details : Token No | CartId";
@@ -88,17 +190,10 @@ public class CartServiceImpl implements CartService {
 
     @Override
     public String removeByUserID(Long userId) {
-        Optional<User> userOptional = userRepo.findById(userId);
-        List<Cart> cartList = cartRepo.findByUser(userOptional.get());
-        if (!cartList.isEmpty()) {
-
-//            for (Cart cart : cartList) {
-//                Book book = cart.getBook();
-//                book.setBookQuantity(book.getBookQuantity() + cart.getCartQuantity());
-//                bookRepo.save(book);
-//            }
-
-            cartRepo.deleteAll(cartList);
+        // Unflushed quantities are dropped with the cart
+        cartStore.evict(userId);
+        reservationService.releaseAll(userId);
+        if (cartRepo.deleteAllByUserId(userId) > 0) {
             return "All Cart Deleted for User ID: " + userId;
         } else {
             return "Enter a Valid User ID : " + userId;
@@ -106,62 +201,65 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
+    @RetryOnConflict
     public String updateQuantityInCart(long userId, Long cartId, Integer quantity) {
-        Optional<User> optionalUser = userRepo.findById(userId);
-        Optional<Cart> optionalCart = cartRepo.findById(cartId);
-        if (!Objects.equals(optionalUser.get().getUserId(), optionalCart.get().getUser().getUserId())) {
-            throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
-        }
-        Cart cart = optionalCart.get();
-        Book book = cart.getBook();
-        if (quantity <= book.getBookQuantity()) {
-            throw new CustomiseException("Enter a Valid Quantity To Update Cart!! Available : " + book.getBookQuantity());
+        if (cartStore.isEnabled()) {
+            if (quantity == null || quantity <= 0) {
+                throw new CustomiseException("Enter a Valid Quantity To Update Cart!!");
+            }
+            return changeThroughStore(userId, cartId, quantity, 0);
         }
-        cart.setCartQuantity(cart.getCartQuantity() + quantity);
-        cartRepo.save(cart);
-        book.setBookQuantity(book.getBookQuantity() - quantity);
-        bookRepo.save(book);
-        return "Cart Updated Successfully with Id : " + cartId;
+        // Stock is only taken when the order is placed, until then the extra units are held for this cart
+        return changeLineQuantity(userId, cartId, quantity, (cart, book) -> quantity <= 0 || cart.getCartQuantity() + quantity > book.getBookQuantity());
     }
 
     @Override
+    @RetryOnConflict
     public String updateQuantityInCartAdd(long userId, Long cartId) {
-        Optional<User> optionalUser = userRepo.findById(userId);
-        Optional<Cart> optionalCart = cartRepo.findById(cartId);
-        if (!Objects.equals(optionalUser.get().getUserId(), optionalCart.get().getUser().getUserId())) {
-            throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
-        }
-        Cart cart = optionalCart.get();
-        Book book = cart.getBook();
-        if (cart.getCartQuantity() + 1 >= book.getBookQuantity()) {
-            throw new CustomiseException("Enter a Valid Quantity To Update Cart!! Available : " + book.getBookQuantity());
+        if (cartStore.isEnabled()) {
+            return changeThroughStore(userId, cartId, 1, 1);
         }
-        cart.setCartQuantity(cart.getCartQuantity() + 1);
-        cartRepo.save(cart);
-        return "Cart Updated Successfully with Id : " + cartId;
+        return changeLineQuantity(userId, cartId, 1, (cart, book) -> cart.getCartQuantity() + 1 >= book.getBookQuantity());
     }
 
     @Override
+    @RetryOnConflict
     public String updateQuantityInCartRmv(long userId, Long cartId) {
-        Optional<User> optionalUser = userRepo.findById(userId);
-        Optional<Cart> optionalCart = cartRepo.findById(cartId);
-        if (!Objects.equals(optionalUser.get().getUserId(), optionalCart.get().getUser().getUserId())) {
-            throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
+        if (cartStore.isEnabled()) {
+            return changeThroughStore(userId, cartId, -1, 0);
         }
-        Cart cart = optionalCart.get();
-        Book book = cart.getBook();
-        if (cart.getCartQuantity() - 1 < 1) {
-            throw new CustomiseException("Enter a Valid Quantity To Update Cart!! Available : " + book.getBookQuantity());
-        }
-        cart.setCartQuantity(cart.getCartQuantity() - 1);
-        cartRepo.save(cart);
+        return changeLineQuantity(userId, cartId, -1, (cart, book) -> cart.getCartQuantity() - 1 < 1);
+    }
+
+    /**
+     * Moves a line's quantity by delta unless invalid says no, and holds the new quantity.
+     * Line and hold change in one transaction like upsertCartLine, so a failed save or a lost version race leaves no raised hold.
+     */
+    private String changeLineQuantity(long userId, Long cartId, int delta, BiPredicate<Cart, Book> invalid) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Optional<User> optionalUser = userRepo.findById(userId);
+            Optional<Cart> optionalCart = cartRepo.findById(cartId);
+            if (!Objects.equals(optionalUser.get().getUserId(), optionalCart.get().getUser().getUserId())) {
+                throw new CustomiseException("Enter a Valid Cart Id for Update : " + userId);
+            }
+            Cart cart = optionalCart.get();
+            Book book = cart.getBook();
+            if (invalid.test(cart, book)) {
+                throw new CustomiseException("Enter a Valid Quantity To Update Cart!! Available : " + book.getBookQuantity());
+            }
+            reservationService.hold(userId, book.getBookId(), cart.getCartQuantity() + delta);
+            cart.setCartQuantity(cart.getCartQuantity() + delta);
+            cartRepo.save(cart);
+        });
         return "Cart Updated Successfully with Id : " + cartId;
     }
 
     @Override
     public List<CartEntityToDto> getAllCartItemsByUserID(Long userId) {
-        Optional<User> userOptional = userRepo.findById(userId);
-        List<Cart> cartList = cartRepo.findByUser(userOptional.get());
+        if (cartStore.isEnabled()) {
+            return getCartItemsFromStore(userId);
+        }
+        List<Cart> cartList = cartRepo.findAllByUserIdWithBook(userId);
         if (!cartList.isEmpty()) {
             return cartList.stream().map(this::cartToDtoConverter).collect(Collectors.toList());
 
@@ -173,7 +271,9 @@ public class CartServiceImpl implements CartService {
 
     @Override
     public List<CartEntityToDto> getAllCarts() {
-        List<Cart> cartList = cartRepo.findAll();
+        // Reads every cart from the database, so pending cart store changes go first
+        cartStore.flush();
+        List<Cart> cartList = cartRepo.findAllWithUserAndBook();
         if (!cartList.isEmpty()) {
             return cartList.stream().map(this::cartToDtoConverter).collect(Collectors.toList());
         } else {
@@ -183,36 +283,51 @@ public class CartServiceImpl implements CartService {
 
 
 
-    private Cart dtoToCartConverter(DtoToCartEntity dtoToCartEntity) {
-        Cart cart = new Cart();
-        cart.setCartQuantity(dtoToCartEntity.getCartQuantity());
-        return cart;
+    private List<CartEntityToDto> getCartItemsFromStore(Long userId) {
+        List<CartLineDto> lines = cartStore.lines(userId);
+        if (lines.isEmpty()) {
+            throw new CustomiseException("No Cart is Available with USER ID : " + userId);
+        }
+        User user = userRepo.findById(userId).orElse(null);
+        Map<Long, BookEntityToDto> books = bookCache.getBooks(lines.stream().map(CartLineDto::getBookId).toList());
+        List<CartEntityToDto> cartItems = new ArrayList<>(lines.size());
+        for (CartLineDto line : lines) {
+            BookEntityToDto book = books.get(line.getBookId());
+            if (book == null) {
+                continue;
+            }
+            CartEntityToDto cartEntityToDto = new CartEntityToDto();
+            cartEntityToDto.setCartId(line.getCartId());
+            cartEntityToDto.setUser(user);
+            cartEntityToDto.setCartQuantity(line.getCartQuantity());
+            cartEntityToDto.setTotalPrice(line.getCartQuantity() * book.getBookPrice());
+            BookDto bookDto = new BookDto();
+            bookDto.setBookId(book.getBookId());
+            bookDto.setTitle(book.getBookName());
+            bookDto.setAuthor(book.getBookAuthor());
+            bookDto.setPrice(book.getBookPrice());
+            cartEntityToDto.setBook(bookDto);
+            cartItems.add(cartEntityToDto);
+        }
+        return cartItems;
     }
 
-    private CartEntityToDto cartToDtoConverter(Cart cart) {
+    // Package-private so the JMH benchmarks in src/jmh can call it
+    CartEntityToDto cartToDtoConverter(Cart cart) {
         CartEntityToDto cartEntityToDto = new CartEntityToDto();
         cartEntityToDto.setCartId(cart.getCartId());
         cartEntityToDto.setUser(cart.getUser()); // Optional: remove if User isn't needed in frontend
         cartEntityToDto.setCartQuantity(cart.getCartQuantity());
         cartEntityToDto.setTotalPrice(cart.getTotalPrice());
 
+        // The book is fetched together with the cart line, no extra lookup needed
         Book book = cart.getBook();
-
-        // SAFELY fetch book from DB
-        Optional<Book> bookById = bookRepo.findById(book.getBookId());
-        if (bookById.isPresent()) {
-            Book bookEntity = bookById.get();
-            BookDto bookDto = new BookDto();
-            bookDto.setBookId(bookEntity.getBookId());
-            bookDto.setTitle(bookEntity.getBookName());
-            bookDto.setAuthor(bookEntity.getBookAuthor());
-            bookDto.setPrice(bookEntity.getBookPrice());
-
-            cartEntityToDto.setBook(bookDto);
-        } else {
-            // Handle if book not found (optional)
-            throw new RuntimeException("Book not found with ID: " + book.getBookId());
-        }
+        BookDto bookDto = new BookDto();
+        bookDto.setBookId(book.getBookId());
+        bookDto.setTitle(book.getBookName());
+        bookDto.setAuthor(book.getBookAuthor());
+        bookDto.setPrice(book.getBookPrice());
+        cartEntityToDto.setBook(bookDto);
 
         return cartEntityToDto;
     }
@@ -1,54 +1,231 @@
 package com.example.serviceImpl;
 
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
 import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderFilterDto;
+import com.example.dto.OrderPageDto;
+import com.example.dto.OrderSummaryDto;
 import com.example.entity.*;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
 import com.example.repo.CartRepo;
+import com.example.repo.OrderItemRepo;
 import com.example.repo.OrderRepo;
 import com.example.repo.UserRepo;
+import com.example.retry.RetryOnConflict;
 import com.example.service.OrderService;
+import com.example.service.OutboxService;
+import com.example.service.ReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.sql.Savepoint;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class OrderServiceImpl implements OrderService {
+    private static final int DEFAULT_ORDER_PAGE_SIZE = 50;
+    private static final int MAX_ORDER_PAGE_SIZE = 500;
+
     @Autowired
     private UserRepo userRepo;
     @Autowired
     private OrderRepo orderRepo;
     @Autowired
     private CartRepo cartRepo;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private BookCache bookCache;
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+    @Autowired
+    private CartStore cartStore;
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @Override
+    // Two checkouts that both fall back to locking every stripe of a hot book can deadlock, the loser starts over
+    @RetryOnConflict
+    @Transactional
     public Order placeOrder(Long userId, DtoToAddressEntity dtoToAddressEntity) {
         Optional<User> userOptional = userRepo.findById(userId);
-        List<Cart> cartList = cartRepo.findByUser(userOptional.get());
+        List<Cart> cartList = cartRepo.findAllByUserIdWithBook(userOptional.get().getUserId());
+
+        // The buyer's own holds give way to the real decrement, a rolled back order gets them back
+        reservationService.releaseAll(userId);
+        reserveStock(cartList);
+
+        List<OrderItem> items = new ArrayList<>(cartList.size());
+        Order order = newOrder(userOptional.get(), dtoToAddressEntity, cartList, items);
+
+        // Flush so the order row exists before its lines are inserted over JDBC
+        orderRepo.saveAndFlush(order);
+        // The lines come back with their IDs, so the managed order can hold them without reading them again
+        orderItemRepo.insertAll(order.getOrderId(), items);
+        order.setItems(items);
+        // Only the lines that were ordered go, in one statement. If one vanished meanwhile the order is rolled back
+        List<Long> cartIds = cartList.stream().map(Cart::getCartId).toList();
+        if (!cartIds.isEmpty() && cartRepo.deleteAllByCartIdInAndUserId(cartIds, userId) != cartIds.size()) {
+            throw new CustomiseException("Cart Changed While Placing the Order, Please Try Again");
+        }
+        // Emails, analytics and inventory sync run off the outbox once this commits
+        outboxService.orderPlaced(order);
+        cartStore.evictAfterCompletion(userId);
+        return order;
+    }
+
+    /**
+     * Places the orders of several users in one transaction, the same way placeOrder does for one: stock of all
+     * carts is decremented in one batch, orders and their lines are inserted in one batch each and all cart lines
+     * go in one delete. An order whose stock cannot be reserved is left out of the result with its cart and holds
+     * untouched, the others are still placed. Any other failure places none and is thrown.
+     * Like placeOrder, it reads carts from the database only: OrderBatcher flushes the cart store before either runs.
+     */
+    @Override
+    @Transactional
+    public Map<Long, Order> placeOrders(Map<Long, DtoToAddressEntity> addressesByUserId) {
+        Set<Long> userIds = addressesByUserId.keySet();
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepo.findAllById(userIds)) {
+            users.put(user.getUserId(), user);
+        }
+        if (users.size() != userIds.size()) {
+            throw new CustomiseException("Enter a Valid Token");
+        }
+        List<Cart> allLines = cartRepo.findAllByUserIdInWithBook(userIds);
+        Map<Long, List<Cart>> cartsByUserId = new HashMap<>();
+        for (Cart cart : allLines) {
+            cartsByUserId.computeIfAbsent(cart.getUser().getUserId(), key -> new ArrayList<>()).add(cart);
+        }
+
+        Set<Long> rejected = reserveStock(userIds, allLines, cartsByUserId);
+
+        Map<Long, Order> ordersByUserId = new LinkedHashMap<>();
+        Map<Long, List<OrderItem>> itemsByUserId = new HashMap<>();
+        List<Long> cartIds = new ArrayList<>(allLines.size());
+        for (Map.Entry<Long, DtoToAddressEntity> request : addressesByUserId.entrySet()) {
+            if (rejected.contains(request.getKey())) {
+                continue;
+            }
+            List<Cart> cartList = cartsByUserId.getOrDefault(request.getKey(), List.of());
+            cartList.forEach(cart -> cartIds.add(cart.getCartId()));
+            List<OrderItem> items = new ArrayList<>(cartList.size());
+            ordersByUserId.put(request.getKey(), newOrder(users.get(request.getKey()), request.getValue(), cartList, items));
+            itemsByUserId.put(request.getKey(), items);
+        }
+
+        // One flush inserts every address and order, batched since both use sequence IDs
+        orderRepo.saveAllAndFlush(ordersByUserId.values());
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        ordersByUserId.forEach((userId, order) -> itemsByOrderId.put(order.getOrderId(), itemsByUserId.get(userId)));
+        orderItemRepo.insertAll(itemsByOrderId);
+        for (Order order : ordersByUserId.values()) {
+            order.setItems(itemsByOrderId.get(order.getOrderId()));
+        }
+
+        if (!cartIds.isEmpty() && cartRepo.deleteAllByCartIdIn(cartIds) != cartIds.size()) {
+            throw new CustomiseException("Cart Changed While Placing the Order, Please Try Again");
+        }
+        outboxService.ordersPlaced(ordersByUserId.values());
+        ordersByUserId.keySet().forEach(cartStore::evictAfterCompletion);
+        return ordersByUserId;
+    }
+
+    // All carts are reserved in one batch. When a book runs short that batch is rolled back to a savepoint and the
+    // carts are reserved one by one instead, each behind its own savepoint, so only the carts that cannot be served are left out
+    private Set<Long> reserveStock(Set<Long> userIds, List<Cart> allLines, Map<Long, List<Cart>> cartsByUserId) {
+        // A savepoint only covers SQL, nothing Hibernate still has to write may end up behind one
+        cartRepo.flush();
+        if (reserveBehindSavepoint(userIds, allLines)) {
+            return Set.of();
+        }
+        Set<Long> rejected = new HashSet<>();
+        for (Long userId : userIds) {
+            if (!reserveBehindSavepoint(Set.of(userId), cartsByUserId.getOrDefault(userId, List.of()))) {
+                rejected.add(userId);
+            }
+        }
+        return rejected;
+    }
+
+    // Plain JDBC savepoint on the transaction's connection, the JPA transaction manager offers no nested transactions
+    private boolean reserveBehindSavepoint(Set<Long> userIds, List<Cart> cartList) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                reservationService.releaseAll(userIds);
+                reserveStock(cartList);
+                return true;
+            } catch (CustomiseException e) {
+                connection.rollback(savepoint);
+                return false;
+            }
+        });
+    }
 
+    // Reserve stock first, any line that cannot be served rolls back the transaction, or the savepoint a batch runs it behind
+    private void reserveStock(List<Cart> cartList) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> stripedQuantities = new HashMap<>();
+        for (Cart cart : cartList) {
+            Map<Long, Integer> target = cart.getBook().getStockStripes() > 0 ? stripedQuantities : quantities;
+            target.merge(cart.getBook().getBookId(), cart.getCartQuantity(), Integer::sum);
+        }
+        List<Long> unavailable = new ArrayList<>(bookRepo.decrementStock(quantities));
+        unavailable.addAll(bookRepo.decrementStripedStock(stripedQuantities));
+        if (!unavailable.isEmpty()) {
+            throw new CustomiseException("Book NOT Available in Requested Quantity : " + unavailable);
+        }
+        // Striped books keep their BOOK_TBL row and cached entry until the next refresh
+        bookCache.evictAfterCommit(quantities.keySet());
+    }
+
+    // Prices the cart lines into a new order, its lines are added to items for the caller to insert
+    private Order newOrder(User user, DtoToAddressEntity dtoToAddressEntity, List<Cart> cartList, List<OrderItem> items) {
         Order order = new Order();
         Address address = dtoToAddressConverter(dtoToAddressEntity);
 
         double totalPrice = 0;
-        List<Book> books = cartList.stream().map(Cart::getBook).collect(Collectors.toList());
+        int totalQuantity = 0;
         for (Cart cart : cartList) {
-            totalPrice += cart.getBook().getBookPrice() * cart.getCartQuantity();
+            Book book = cart.getBook();
+            totalPrice += book.getBookPrice() * cart.getCartQuantity();
+            totalQuantity += cart.getCartQuantity();
+            OrderItem item = new OrderItem();
+            item.setBookId(book.getBookId());
+            item.setBookName(book.getBookName());
+            item.setQuantity(cart.getCartQuantity());
+            item.setUnitPrice(book.getBookPrice());
+            items.add(item);
         }
 
         order.setOrderDate(LocalDate.now());
         order.setOrderPrice(totalPrice);
-        order.setOrderQuantity(cartList.size());
+        order.setOrderQuantity(totalQuantity);
+        order.setCancelOrder(false);
 
         order.setAddress(address);
 
-        order.setUser(userOptional.get());
-        order.setBook(books);
-
-        orderRepo.save(order);
-        cartRepo.deleteAll(cartList);
+        order.setUser(user);
         return order;
     }
 
@@ -68,6 +245,8 @@ public class OrderServiceImpl implements OrderService {
 
 
     @Override
+    // The cancellation and its outbox event commit together
+    @Transactional
     public String cancelOrder(Long userId, Long orderId) {
         Optional<User> userOptional = userRepo.findById(userId);
         if (userOptional.isEmpty()) {
@@ -84,15 +263,38 @@ public class OrderServiceImpl implements OrderService {
         }
         order.setCancelOrder(true);
         orderRepo.save(order);
+        outboxService.orderCancelled(order);
         return "Order Cancel Successfully with ID : " + orderId;
     }
 
     @Override
-    public Object getAllOrders(Long userId) {
-        List<Order> orderList = orderRepo.findAll().stream().filter(cancelOrder -> cancelOrder.getCancelOrder().equals(false)).collect(Collectors.toList());
-        if (orderList.isEmpty()){
+    public Object getAllOrders(OrderFilterDto filter) {
+        int pageSize = (filter.getSize() == null || filter.getSize() <= 0) ? DEFAULT_ORDER_PAGE_SIZE : Math.min(filter.getSize(), MAX_ORDER_PAGE_SIZE);
+        long cursor = filter.getBefore() == null ? Long.MAX_VALUE : filter.getBefore();
+        // One extra row tells whether another page exists
+        List<OrderSummaryDto> orders = orderRepo.findSummariesBefore(cursor, cancelledFilter(filter.getStatus()), filter.getCustomerId(),
+                filter.getFromDate(), filter.getToDate(), Limit.of(pageSize + 1));
+        if (orders.isEmpty() && filter.getBefore() == null) {
             return "No Order Is Present!!";
         }
-        return orderList;
+        Long nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            nextCursor = orders.get(pageSize - 1).getOrderId();
+        }
+        return new OrderPageDto(orders, nextCursor);
+    }
+
+    private Boolean cancelledFilter(String status) {
+        if (status == null || status.isBlank() || "ACTIVE".equalsIgnoreCase(status)) {
+            return false;
+        }
+        if ("CANCELLED".equalsIgnoreCase(status)) {
+            return true;
+        }
+        if ("ALL".equalsIgnoreCase(status)) {
+            return null;
+        }
+        throw new CustomiseException("Invalid Order Status : " + status);
     }
 }
@@ -0,0 +1,211 @@
+package com.example.serviceImpl;
+
+/**
+ * OutboxServiceImpl.java
+ * Transactional outbox for order events. Placing or cancelling an order writes one OUTBOX_EVENT_TBL row in the same
+ * transaction, the only cost on the request path; a scheduled relay later claims due events in batches with
+ * FOR UPDATE SKIP LOCKED, hands each to the OrderEventHandlers that support it and deletes it.
+ * Claiming leases the batch for bookstore.outbox.claim-timeout and commits straight away, the handlers run outside
+ * any transaction and the outcome is written in a second one, so no lock or connection is held while they work.
+ * A failed event is retried with exponential backoff and parked as FAILED after bookstore.outbox.max-attempts.
+ */
+
+import com.example.entity.Order;
+import com.example.entity.OutboxEvent;
+import com.example.event.OrderEventHandler;
+import com.example.repo.OutboxEventRepo;
+import com.example.service.OutboxService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private static final Logger log = LoggerFactory.getLogger(OutboxServiceImpl.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepo outboxEventRepo;
+    private final ObjectProvider<OrderEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    public OutboxServiceImpl(OutboxEventRepo outboxEventRepo, ObjectProvider<OrderEventHandler> handlers, PlatformTransactionManager transactionManager,
+                             @Value("${bookstore.outbox.enabled:true}") boolean enabled,
+                             @Value("${bookstore.outbox.batch-size:100}") int batchSize,
+                             @Value("${bookstore.outbox.max-attempts:10}") int maxAttempts,
+                             @Value("${bookstore.outbox.initial-backoff:1s}") Duration initialBackoff,
+                             @Value("${bookstore.outbox.max-backoff:10m}") Duration maxBackoff,
+                             @Value("${bookstore.outbox.claim-timeout:5m}") Duration claimTimeout) {
+        this.outboxEventRepo = outboxEventRepo;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+    }
+
+    /**
+     * Records that an order was placed. Joins the caller's transaction, a rolled back order leaves no event.
+     */
+    @Override
+    @Transactional
+    public void orderPlaced(Order order) {
+        if (enabled) {
+            outboxEventRepo.save(newEvent(OutboxEvent.ORDER_PLACED, order));
+        }
+    }
+
+    /**
+     * Records a batch of placed orders, inserted as one JDBC batch at flush.
+     */
+    @Override
+    @Transactional
+    public void ordersPlaced(Collection<Order> orders) {
+        if (enabled && !orders.isEmpty()) {
+            outboxEventRepo.saveAll(orders.stream().map(order -> newEvent(OutboxEvent.ORDER_PLACED, order)).toList());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void orderCancelled(Order order) {
+        if (enabled) {
+            outboxEventRepo.save(newEvent(OutboxEvent.ORDER_CANCELLED, order));
+        }
+    }
+
+    /**
+     * Dispatches due events in batches of batchSize. A relay on another instance skips the rows being claimed and
+     * cannot see leased ones, it takes the next events. A relay that dies mid-batch leaves its events due again
+     * once the lease runs out.
+     *
+     * @return the number of events dispatched or rescheduled
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.outbox.poll-interval-ms:500}")
+    public int relay() {
+        if (!enabled) {
+            return 0;
+        }
+        int relayed = 0;
+        while (true) {
+            int claimed = dispatchBatch();
+            relayed += claimed;
+            // Rescheduled events are not due again yet, so a full batch always means there may be more
+            if (claimed < batchSize) {
+                return relayed;
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = transactionTemplate.execute(status -> {
+            List<OutboxEvent> claimed = outboxEventRepo.claimDue(now, batchSize);
+            if (!claimed.isEmpty()) {
+                outboxEventRepo.lease(claimed.stream().map(OutboxEvent::getEventId).toList(), now.plus(claimTimeout));
+            }
+            return claimed;
+        });
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<OrderEventHandler> eventHandlers = handlers.orderedStream().toList();
+        List<Long> dispatched = new ArrayList<>(events.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            try {
+                for (OrderEventHandler handler : eventHandlers) {
+                    if (handler.supports(event.getEventType())) {
+                        handler.handle(event);
+                    }
+                }
+                dispatched.add(event.getEventId());
+            } catch (RuntimeException e) {
+                // One failing event does not hold up the rest of the batch
+                retryLater(event, e, now);
+                failed.add(event);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!dispatched.isEmpty()) {
+                outboxEventRepo.deleteAllByIdInBatch(dispatched);
+            }
+            for (OutboxEvent event : failed) {
+                outboxEventRepo.reschedule(event.getEventId(), event.getAttempts(), event.getLastError(), event.getStatus(), event.getAvailableAt());
+            }
+        });
+        return events.size();
+    }
+
+    private void retryLater(OutboxEvent event, RuntimeException e, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.FAILED);
+            log.error("Outbox event {} ({} of order {}) failed {} times, parked", event.getEventId(), event.getEventType(), event.getOrderId(), attempts, e);
+            return;
+        }
+        // initialBackoff * 2^(attempts - 1), capped at maxBackoff
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        event.setAvailableAt(now.plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+        log.warn("Outbox event {} ({} of order {}) failed, attempt {} of {}: {}", event.getEventId(), event.getEventType(), event.getOrderId(),
+                attempts, maxAttempts, error);
+    }
+
+    private static OutboxEvent newEvent(String eventType, Order order) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setOrderId(order.getOrderId());
+        event.setPayload(payload(order));
+        event.setStatus(OutboxEvent.PENDING);
+        event.setAttempts(0);
+        event.setAvailableAt(now);
+        event.setCreatedAt(now);
+        return event;
+    }
+
+    // What handlers usually need without loading the order again
+    private static String payload(Order order) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("orderId", order.getOrderId());
+        fields.put("userId", order.getUser() == null ? null : order.getUser().getUserId());
+        fields.put("orderDate", order.getOrderDate() == null ? null : order.getOrderDate().toString());
+        fields.put("orderPrice", order.getOrderPrice());
+        fields.put("orderQuantity", order.getOrderQuantity());
+        fields.put("cancelled", order.getCancelOrder());
+        try {
+            return JSON.writeValueAsString(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Order " + order.getOrderId() + " could not be written as JSON", e);
+        }
+    }
+}
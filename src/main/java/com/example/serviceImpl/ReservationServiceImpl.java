@@ -0,0 +1,144 @@
+package com.example.serviceImpl;
+
+/**
+ * ReservationServiceImpl.java
+ * Time-limited stock holds for cart lines. Each user has at most one hold per book, sized to their cart line
+ * and renewed on every change to it. A book's available quantity is its stock minus every unexpired hold,
+ * so a contended title is shared out when it goes into carts rather than at checkout.
+ * Holds on one book are serialised by a row lock on the book, expired holds are deleted in batches by a sweeper.
+ */
+
+import com.example.entity.StockHold;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.repo.StockHoldRepo;
+import com.example.service.ReservationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class ReservationServiceImpl implements ReservationService {
+    private final StockHoldRepo stockHoldRepo;
+    private final BookRepo bookRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration holdTtl;
+    private final int sweepBatchSize;
+
+    public ReservationServiceImpl(StockHoldRepo stockHoldRepo, BookRepo bookRepo, PlatformTransactionManager transactionManager,
+                                  @Value("${bookstore.stock-hold.enabled:true}") boolean enabled,
+                                  @Value("${bookstore.stock-hold.ttl:15m}") Duration holdTtl,
+                                  @Value("${bookstore.stock-hold.sweep-batch-size:500}") int sweepBatchSize) {
+        this.stockHoldRepo = stockHoldRepo;
+        this.bookRepo = bookRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.holdTtl = holdTtl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Sets the user's hold on a book to quantity units and restarts its expiry.
+     * Throws when fewer units are left once everyone else's active holds are taken out.
+     */
+    @Override
+    @Transactional
+    public void hold(Long userId, Long bookId, int quantity) {
+        if (!enabled) {
+            return;
+        }
+        if (quantity <= 0) {
+            stockHoldRepo.deleteByUserIdAndBookId(userId, bookId);
+            return;
+        }
+        // Striped books are sold first come first served at checkout, holding would put every click back on the one book row
+        if (bookRepo.findById(bookId).map(book -> book.getStockStripes() > 0).orElse(false)) {
+            return;
+        }
+        Integer stock = bookRepo.lockStock(bookId).orElseThrow(() -> new CustomiseException("Book NOT Found with ID: " + bookId));
+        LocalDateTime now = LocalDateTime.now();
+        Optional<StockHold> own = stockHoldRepo.findByUserIdAndBookId(userId, bookId);
+        long ownActive = own.filter(hold -> hold.getExpiresAt().isAfter(now)).map(StockHold::getQuantity).orElse(0);
+        long available = stock - (stockHoldRepo.sumActiveHolds(bookId, now) - ownActive);
+        if (quantity > available) {
+            throw new CustomiseException("Book NOT Available in Requested Quantity!! Available : " + Math.max(0, available));
+        }
+        StockHold hold = own.orElseGet(StockHold::new);
+        hold.setUserId(userId);
+        hold.setBookId(bookId);
+        hold.setQuantity(quantity);
+        hold.setExpiresAt(now.plus(holdTtl));
+        stockHoldRepo.save(hold);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long userId, Long bookId) {
+        if (enabled) {
+            stockHoldRepo.deleteByUserIdAndBookId(userId, bookId);
+        }
+    }
+
+    /**
+     * Drops all of a user's holds, when the cart is cleared or turned into an order.
+     * Joins the caller's transaction, so a failed order keeps its holds.
+     */
+    @Override
+    @Transactional
+    public void releaseAll(Long userId) {
+        if (enabled) {
+            stockHoldRepo.deleteAllByUserId(userId);
+        }
+    }
+
+    /**
+     * Drops the holds of every given user in one statement, for a batch of orders.
+     */
+    @Override
+    @Transactional
+    public void releaseAll(Collection<Long> userIds) {
+        if (enabled && !userIds.isEmpty()) {
+            stockHoldRepo.deleteAllByUserIdIn(userIds);
+        }
+    }
+
+    /**
+     * Deletes expired holds in batches of sweepBatchSize, one short transaction per batch.
+     * Expired holds already count for nothing, this only keeps the table small.
+     *
+     * @return the number of holds deleted
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.stock-hold.sweep-interval-ms:60000}")
+    public int sweepExpired() {
+        if (!enabled) {
+            return 0;
+        }
+        int swept = 0;
+        while (true) {
+            int[] batch = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> expired = stockHoldRepo.findExpiredIds(now, Limit.of(sweepBatchSize));
+                if (expired.isEmpty()) {
+                    return new int[]{0, 0};
+                }
+                return new int[]{expired.size(), stockHoldRepo.deleteExpired(expired, now)};
+            });
+            swept += batch[1];
+            if (batch[0] < sweepBatchSize) {
+                return swept;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.utils;
+
+import java.util.Date;
+
+/**
+ * Claims of a verified JWT. Immutable, so one instance can be shared by every request carrying the same token.
+ */
+public record TokenPrincipal(Long userId, String role, Date expiresAt) {
+}
@@ -1,36 +1,109 @@
 package com.example.utils;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class TokenUtility {
     private static final String SECRET = "SecretKey";
     private static final long EXPIRATION_TIME = 3_600_000 ; // 1 Hr
 
+    // Both are immutable and thread-safe, so one instance serves every request
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(SECRET);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM).build();
+
+    // Verified tokens keyed by their SHA-256, null when the cache is switched off
+    private final Cache<String, TokenPrincipal> verifiedTokens;
+
+    public TokenUtility(@Value("${bookstore.token-cache.enabled:true}") boolean cacheEnabled,
+                        @Value("${bookstore.token-cache.maximum-size:10000}") long maximumSize) {
+        this.verifiedTokens = cacheEnabled
+                ? Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new UntilTokenExpires()).build()
+                : null;
+    }
+
     public String createToken(Long userId, String role) {
-        return JWT.create().withClaim("userId", userId).withClaim("role", role).withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME)).sign(Algorithm.HMAC256(SECRET));
+        return JWT.create().withClaim("userId", userId).withClaim("role", role).withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME)).sign(ALGORITHM);
+    }
+
+    /**
+     * Verifies the token once and returns its claims. A token seen before is served from the cache
+     * until it expires, without checking the signature again.
+     *
+     * @param token the JWT without the "Bearer " prefix
+     * @return the user ID, role and expiry of the token
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is invalid or expired
+     */
+    public TokenPrincipal verify(String token) {
+        if (verifiedTokens == null) {
+            return toPrincipal(VERIFIER.verify(token));
+        }
+        return verifiedTokens.get(sha256(token), key -> toPrincipal(VERIFIER.verify(token)));
     }
 
     public Long decodeToken(String token) {
-        return JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token).getClaim("userId").asLong();
+        return verify(token).userId();
     }
 
     public String getRoleFromToken(String token) {
-        return JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token).getClaim("role").asString();
+        return verify(token).role();
     }
 
     public Long getEmpIdFromToken(String token) {
-        return JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token).getClaim("userId").asLong();
+        return verify(token).userId();
     }
 
     // Method to extract the expiration date from the token
     public Date getExpirationFromToken(String token) {
-        DecodedJWT decodedJWT = JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token);
-        return decodedJWT.getExpiresAt();
+        return verify(token).expiresAt();
+    }
+
+    private static TokenPrincipal toPrincipal(DecodedJWT decodedJWT) {
+        return new TokenPrincipal(decodedJWT.getClaim("userId").asLong(), decodedJWT.getClaim("role").asString(), decodedJWT.getExpiresAt());
+    }
+
+    private static String sha256(String token) {
+        try {
+            // Hashing keeps raw tokens out of the heap-resident cache
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Drops an entry the moment its token expires, tokens without an expiry live for the default token lifetime
+    private static class UntilTokenExpires implements Expiry<String, TokenPrincipal> {
+        @Override
+        public long expireAfterCreate(String key, TokenPrincipal principal, long currentTime) {
+            long millisLeft = principal.expiresAt() == null
+                    ? EXPIRATION_TIME
+                    : principal.expiresAt().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
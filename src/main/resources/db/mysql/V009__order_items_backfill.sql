@@ -0,0 +1,31 @@
+-- Order lines moved from the ORDER_TBL_BOOK join table to ORDER_ITEM_TBL. ddl-auto=update creates the new table
+-- but copies nothing, so orders placed before the deploy would read back without lines. Run this once, with the
+-- application stopped, before deploying; running it again skips orders that already have lines.
+--
+-- The join table never stored what a line cost or how many copies it was for:
+--  * unit_price and book_name are the book's CURRENT values, not the ones at purchase time.
+--  * The copies per line are unknown. Each join row (one per cart line at the time) counts as one copy, so a line
+--    of several copies comes back as 1. ORDER_TBL.order_quantity cannot fill the gap: it counted cart lines too.
+-- ORDER_TBL_BOOK is left in place; drop it once the backfilled lines have been checked.
+
+CREATE TABLE IF NOT EXISTS ORDER_ITEM_TBL (
+    order_item_id BIGINT NOT NULL AUTO_INCREMENT,
+    order_id      BIGINT NOT NULL,
+    book_id       BIGINT,
+    book_name     VARCHAR(255),
+    quantity      INT,
+    unit_price    DOUBLE,
+    PRIMARY KEY (order_item_id),
+    INDEX idx_order_item_order (order_id)
+);
+
+INSERT INTO ORDER_ITEM_TBL (order_id, book_id, book_name, quantity, unit_price)
+SELECT ob.order_order_id,
+       ob.book_book_id,
+       b.book_name,
+       COUNT(*),
+       b.book_price
+FROM ORDER_TBL_BOOK ob
+JOIN BOOK_TBL b ON b.book_id = ob.book_book_id
+WHERE NOT EXISTS (SELECT 1 FROM ORDER_ITEM_TBL i WHERE i.order_id = ob.order_order_id)
+GROUP BY ob.order_order_id, ob.book_book_id, b.book_name, b.book_price;
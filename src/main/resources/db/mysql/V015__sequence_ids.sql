@@ -0,0 +1,24 @@
+-- Book, Cart, Order, Address and User switched from IDENTITY to pooled sequences: Hibernate fetches 50 IDs per
+-- round trip and, unlike with IDENTITY, can batch the inserts.
+-- MySQL has no sequences, Hibernate emulates each one with a one-row table. ddl-auto=update creates those
+-- tables starting at 1, so on a database that already holds rows run this once, with the application stopped,
+-- to start every sequence after the highest existing ID.
+-- The pooled optimizer (allocationSize = 50) takes the value it reads as the TOP of its first block and hands out
+-- value-49 .. value, so each table is seeded with MAX(id) + 50 for the first block to start at MAX(id) + 1.
+
+CREATE TABLE IF NOT EXISTS book_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS cart_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS order_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS address_seq (next_val BIGINT);
+CREATE TABLE IF NOT EXISTS user_seq (next_val BIGINT);
+
+DELETE FROM book_seq;
+INSERT INTO book_seq SELECT COALESCE(MAX(book_id), 0) + 50 FROM BOOK_TBL;
+DELETE FROM cart_seq;
+INSERT INTO cart_seq SELECT COALESCE(MAX(cart_id), 0) + 50 FROM CART_TBL;
+DELETE FROM order_seq;
+INSERT INTO order_seq SELECT COALESCE(MAX(order_id), 0) + 50 FROM ORDER_TBL;
+DELETE FROM address_seq;
+INSERT INTO address_seq SELECT COALESCE(MAX(add_id), 0) + 50 FROM ADDRESS_TBL;
+DELETE FROM user_seq;
+INSERT INTO user_seq SELECT COALESCE(MAX(user_id), 0) + 50 FROM USER_TBL;
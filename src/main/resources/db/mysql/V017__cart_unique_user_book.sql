@@ -0,0 +1,18 @@
+-- Cart lines became one row per (user, book). Older data can hold several rows for the same pair, which stops
+-- ddl-auto=update from adding the unique constraint (it only logs a warning). Run this once, with the application
+-- stopped, to fold duplicates into the oldest row and then add the constraint.
+
+UPDATE CART_TBL c
+JOIN (SELECT MIN(cart_id) AS keep_id, SUM(cart_quantity) AS quantity, SUM(total_price) AS total
+      FROM CART_TBL
+      GROUP BY user_user_id, book_book_id
+      HAVING COUNT(*) > 1) d ON c.cart_id = d.keep_id
+SET c.cart_quantity = d.quantity, c.total_price = d.total;
+
+DELETE c FROM CART_TBL c
+JOIN (SELECT MIN(cart_id) AS keep_id, user_user_id, book_book_id
+      FROM CART_TBL
+      GROUP BY user_user_id, book_book_id
+      HAVING COUNT(*) > 1) d ON c.user_user_id = d.user_user_id AND c.book_book_id = d.book_book_id AND c.cart_id <> d.keep_id;
+
+ALTER TABLE CART_TBL ADD CONSTRAINT uk_cart_user_book UNIQUE (user_user_id, book_book_id);
@@ -0,0 +1,5 @@
+-- Book and Cart rows carry a version for optimistic locking. ddl-auto=update would add the column as NULL for existing
+-- rows, which Hibernate cannot compare against. Run this once, with the application stopped, before deploying.
+
+ALTER TABLE BOOK_TBL ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE CART_TBL ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
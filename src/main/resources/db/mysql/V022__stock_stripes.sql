@@ -0,0 +1,10 @@
+-- Opt-in stock striping for hot titles. Run once, with the application stopped, before deploying.
+
+ALTER TABLE BOOK_TBL ADD COLUMN stock_stripes INT NOT NULL DEFAULT 0;
+
+CREATE TABLE BOOK_STOCK_STRIPE_TBL (
+    book_id   BIGINT NOT NULL,
+    stripe_no INT    NOT NULL,
+    quantity  INT    NOT NULL,
+    PRIMARY KEY (book_id, stripe_no)
+);
@@ -0,0 +1,77 @@
+package com.example.cache;
+
+import com.example.dto.BookEntityToDto;
+import com.example.entity.Book;
+import com.example.repo.BookRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookCacheTest {
+
+    @Mock
+    private BookRepo bookRepo;
+
+    private BookCache bookCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookCache = new BookCache(bookRepo, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testGetBook_LoadsOnceThenHits() {
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(createSampleBook(1L)));
+
+        Optional<BookEntityToDto> first = bookCache.getBook(1L);
+        Optional<BookEntityToDto> second = bookCache.getBook(1L);
+
+        assertTrue(first.isPresent());
+        assertEquals("Java Basics", second.get().getBookName());
+        verify(bookRepo, times(1)).findById(1L);
+
+        Map<String, Long> stats = bookCache.statsSnapshot();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void testGetBook_MissingBookIsNotCached() {
+        when(bookRepo.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(bookCache.getBook(2L).isEmpty());
+        assertTrue(bookCache.getBook(2L).isEmpty());
+
+        verify(bookRepo, times(2)).findById(2L);
+    }
+
+    @Test
+    void testEvict_ForcesReload() {
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(createSampleBook(1L)));
+        bookCache.getBook(1L);
+
+        bookCache.evict(1L);
+        bookCache.getBook(1L);
+
+        verify(bookRepo, times(2)).findById(1L);
+    }
+
+    private Book createSampleBook(Long id) {
+        Book book = new Book();
+        book.setBookId(id);
+        book.setBookName("Java Basics");
+        book.setBookAuthor("John Doe");
+        book.setBookPrice(500.0);
+        book.setBookQuantity(10);
+        return book;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.cache;
+
+import com.example.dto.CartEntityToDto;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.order.OrderBatcher;
+import com.example.repo.CartRepo;
+import com.example.search.BookSuggestIndex;
+import com.example.service.CartService;
+import com.example.service.OrderService;
+import com.example.serviceImpl.CartServiceImpl;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cart clicks with the write-behind store on: quantities change in memory, reach CART_TBL with the next flush,
+ * and anything reading the cart from the database (orders, admin listing) flushes first.
+ */
+@DataJpaTest(properties = {
+        "bookstore.cart-store.enabled=true",
+        // Stock holds are a database write per click, off here so the in-memory path can be measured on its own
+        "bookstore.stock-hold.enabled=false",
+        // Statistics count every session, the outbox relay must not poll in the middle of a measurement
+        "bookstore.outbox.poll-interval-ms=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({CartServiceImpl.class, OrderServiceImpl.class, OutboxServiceImpl.class, CartStore.class, ReservationServiceImpl.class, BookCache.class, BookSuggestIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartStoreTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        cartStore.flush();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from OrderItem").executeUpdate();
+            entityManager.createQuery("delete from OutboxEvent").executeUpdate();
+            entityManager.createQuery("delete from Order").executeUpdate();
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void clicksStayInMemoryUntilFlush() {
+        Long[] ids = seed(50);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            cartService.updateQuantityInCartAdd(ids[0], cartId);
+        }
+        cartService.updateQuantityInCartRmv(ids[0], cartId);
+        cartService.addTooCart(ids[0], ids[1]);
+        List<CartEntityToDto> items = cartService.getAllCartItemsByUserID(ids[0]);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(11, items.get(0).getCartQuantity());
+        assertEquals(11 * 20.0, items.get(0).getTotalPrice());
+        assertEquals(1, cartRepo.findLinesByUserId(ids[0]).get(0).getCartQuantity());
+
+        cartStore.flush();
+
+        Cart line = cartRepo.findById(cartId).get();
+        assertEquals(11, line.getCartQuantity());
+        assertEquals(11 * 20.0, line.getTotalPrice());
+    }
+
+    @Test
+    void limitsStillApply() {
+        Long[] ids = seed(3);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+
+        assertThrows(CustomiseException.class, () -> cartService.updateQuantityInCartRmv(ids[0], cartId));
+        cartService.addTooCart(ids[0], ids[1]);
+        cartService.addTooCart(ids[0], ids[1]);
+        assertThrows(CustomiseException.class, () -> cartService.addTooCart(ids[0], ids[1]));
+        assertThrows(CustomiseException.class, () -> cartService.updateQuantityInCartAdd(ids[0], cartId + 1_000));
+    }
+
+    @Test
+    void cartLoadsFromDatabaseOnMiss() {
+        Long[] ids = seed(50);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+        cartService.updateQuantityInCartAdd(ids[0], cartId);
+        cartStore.flush();
+
+        // A fresh start only has what was flushed
+        cartStore.evict(ids[0]);
+        cartService.updateQuantityInCartAdd(ids[0], cartId);
+
+        assertEquals(3, cartService.getAllCartItemsByUserID(ids[0]).get(0).getCartQuantity());
+    }
+
+    @Test
+    void placeOrderSeesUnflushedQuantities() {
+        Long[] ids = seed(50);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+        cartService.updateQuantityInCartAdd(ids[0], cartId);
+        cartService.updateQuantityInCartAdd(ids[0], cartId);
+
+        // Checkouts come in through OrderBatcher, which writes the pending quantities before the order transaction starts
+        OrderBatcher checkout = new OrderBatcher(orderService, cartStore, new SimpleMeterRegistry(), false, 1, 0, 1_000);
+        assertEquals(3, checkout.placeOrder(ids[0], new DtoToAddressEntity()).getOrderQuantity());
+        assertThrows(CustomiseException.class, () -> cartService.getAllCartItemsByUserID(ids[0]));
+        assertEquals(0, cartRepo.count());
+    }
+
+    @Test
+    void removedLinesAreNotWrittenBack() {
+        Long[] ids = seed(50);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+        cartService.updateQuantityInCartAdd(ids[0], cartId);
+
+        assertEquals("Remove From Cart Successfully", cartService.removeFromCart(ids[0], cartId));
+        cartStore.flush();
+
+        assertEquals(0, cartRepo.count());
+        assertEquals(0, cartStore.statsSnapshot().get("dirty"));
+    }
+
+    private Long[] seed(int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("clicker" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+
+            Book book = new Book();
+            book.setBookName("Write Behind");
+            book.setBookPrice(20.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+            return new Long[]{user.getUserId(), book.getBookId()};
+        });
+    }
+}
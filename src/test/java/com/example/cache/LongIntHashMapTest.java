@@ -0,0 +1,55 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(7L, 1);
+        map.put(7L, 3);
+        map.put(8L, 2);
+
+        assertEquals(3, map.get(7L, -1));
+        assertEquals(2, map.size());
+        map.remove(7L);
+        assertFalse(map.containsKey(7L));
+        assertEquals(-1, map.get(7L, -1));
+        assertEquals(2, map.get(8L, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void keyZeroIsReserved() {
+        assertThrows(IllegalArgumentException.class, () -> new LongIntHashMap().put(0L, 1));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(19);
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
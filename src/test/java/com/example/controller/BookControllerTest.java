@@ -1,7 +1,11 @@
 package com.example.controller;
 
 import com.example.dto.BookEntityToDto;
+import com.example.dto.BookPageDto;
+import com.example.dto.BookSearchResultDto;
+import com.example.dto.BookSuggestionDto;
 import com.example.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -9,11 +13,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class BookControllerTest {
@@ -61,4 +70,58 @@ class BookControllerTest {
         assertEquals(book, response.getBody());
         verify(bookService, times(1)).getBook(1L);
     }
+
+    @Test
+    void testGetBooksPage() {
+        BookPageDto page = new BookPageDto(List.of(new BookEntityToDto()), 7L);
+        when(bookService.booksPage(5L, 1)).thenReturn(page);
+
+        ResponseEntity<BookPageDto> response = bookController.getBooksPage(5L, 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    void testSearchBooks() {
+        BookSearchResultDto result = new BookSearchResultDto(1, 0, 20, List.of(new BookEntityToDto()));
+        when(bookService.searchBooks("java", 0, 20)).thenReturn(result);
+
+        ResponseEntity<BookSearchResultDto> response = bookController.searchBooks("java", 0, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+    }
+
+    @Test
+    void testSuggestBooks() {
+        List<BookSuggestionDto> suggestions = List.of(new BookSuggestionDto(1L, "Java Basics", "TITLE"));
+        when(bookService.suggestBooks("ja", 10)).thenReturn(suggestions);
+
+        ResponseEntity<List<BookSuggestionDto>> response = bookController.suggestBooks("ja", 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(suggestions, response.getBody());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAllBooks_WritesOneLinePerBook() throws Exception {
+        BookController streamingController = new BookController(bookService, new ObjectMapper());
+        doAnswer(invocation -> {
+            Consumer<BookEntityToDto> consumer = invocation.getArgument(0);
+            consumer.accept(new BookEntityToDto(1L, "A", "X", "d", "l", 1.0, 1));
+            consumer.accept(new BookEntityToDto(2L, "B", "Y", "d", "l", 2.0, 2));
+            return null;
+        }).when(bookService).streamAllBooks(any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = streamingController.streamAllBooks();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, lines.length);
+        assertEquals(2L, new ObjectMapper().readValue(lines[1], BookEntityToDto.class).getBookId());
+    }
 }
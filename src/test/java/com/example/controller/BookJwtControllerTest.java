@@ -1,6 +1,8 @@
 package com.example.controller;
 
+import com.example.dto.BookImportResultDto;
 import com.example.dto.DtoToBookEntity;
+import com.example.service.BookImportService;
 import com.example.service.BookService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,10 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -18,6 +24,9 @@ class BookJwtControllerTest {
     @Mock
     private BookService bookService;
 
+    @Mock
+    private BookImportService bookImportService;
+
     @InjectMocks
     private BookJwtController bookJwtController;
 
@@ -94,4 +103,106 @@ class BookJwtControllerTest {
         assertEquals("Token is NOT Valid to Update Book", response.getBody());
         verify(bookService, never()).updateBook(anyLong(), any());
     }
+
+    // ---------- updateStockStripes ----------
+    @Test
+    void testUpdateStockStripes_AdminRole_Success() {
+        when(bookService.updateStockStripes(1L, 8)).thenReturn("Stock of Book 1 Split Over 8 Stripes");
+
+        ResponseEntity<String> response = bookJwtController.updateStockStripes("ADMIN", 1L, 8);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Stock of Book 1 Split Over 8 Stripes", response.getBody());
+    }
+
+    @Test
+    void testUpdateStockStripes_NonAdminRole_Failure() {
+        ResponseEntity<String> response = bookJwtController.updateStockStripes("USER", 1L, 8);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(bookService, never()).updateStockStripes(anyLong(), any());
+    }
+
+    // ---------- cacheStats ----------
+    @Test
+    void testCacheStats_AdminRole_Success() {
+        Map<String, Long> stats = Map.of("hits", 3L);
+        when(bookService.cacheStats()).thenReturn(stats);
+
+        ResponseEntity<?> response = bookJwtController.cacheStats("ADMIN");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody());
+    }
+
+    @Test
+    void testCacheStats_NonAdminRole_Failure() {
+        ResponseEntity<?> response = bookJwtController.cacheStats("USER");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(bookService, never()).cacheStats();
+    }
+
+    // ---------- suggestStats ----------
+    @Test
+    void testSuggestStats_AdminRole_Success() {
+        Map<String, Long> footprint = Map.of("keys", 12L);
+        when(bookService.suggestStats()).thenReturn(footprint);
+
+        ResponseEntity<?> response = bookJwtController.suggestStats("ADMIN");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(footprint, response.getBody());
+    }
+
+    @Test
+    void testSuggestStats_NonAdminRole_Failure() {
+        ResponseEntity<?> response = bookJwtController.suggestStats("USER");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(bookService, never()).suggestStats();
+    }
+
+    // ---------- importBooks ----------
+    @Test
+    void testImportBooks_AdminRole_Csv() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookApi/importBooks");
+        request.setContentType("text/csv");
+        request.setContent("bookName,bookPrice,bookQuantity\nDune,10,5\n".getBytes());
+        BookImportResultDto result = new BookImportResultDto(1, 1, 0, 0, List.of(), false);
+        when(bookImportService.importCsv(any())).thenReturn(result);
+
+        ResponseEntity<?> response = bookJwtController.importBooks("ADMIN", request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(bookImportService, never()).importNdjson(any());
+    }
+
+    @Test
+    void testImportBooks_AdminRole_Ndjson() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookApi/importBooks");
+        request.setContentType("application/x-ndjson");
+        request.setContent("{\"bookName\":\"Dune\",\"bookPrice\":10,\"bookQuantity\":5}\n".getBytes());
+        BookImportResultDto result = new BookImportResultDto(1, 1, 0, 0, List.of(), false);
+        when(bookImportService.importNdjson(any())).thenReturn(result);
+
+        ResponseEntity<?> response = bookJwtController.importBooks("ADMIN", request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(bookImportService, never()).importCsv(any());
+    }
+
+    @Test
+    void testImportBooks_NonAdminRole_Failure() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookApi/importBooks");
+        request.setContentType("text/csv");
+
+        ResponseEntity<?> response = bookJwtController.importBooks("USER", request);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Token is NOT Valid to Import Books", response.getBody());
+        verifyNoInteractions(bookImportService);
+    }
 }
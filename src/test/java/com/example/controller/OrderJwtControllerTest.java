@@ -1,7 +1,11 @@
 package com.example.controller;
 
 import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderFilterDto;
+import com.example.dto.OrderStatusDto;
 import com.example.entity.Order;
+import com.example.order.OrderBatcher;
+import com.example.order.OrderPipeline;
 import com.example.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +15,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -19,6 +25,12 @@ class OrderJwtControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private OrderBatcher orderBatcher;
+
+    @Mock
+    private OrderPipeline orderPipeline;
+
     @InjectMocks
     private OrderJwtController orderJwtController;
 
@@ -36,13 +48,13 @@ class OrderJwtControllerTest {
     @Test
     void testPlaceOrder_WithUserRole_ReturnsCreatedOrder() {
         Long userId = 1L;
-        when(orderService.placeOrder(userId, addressEntity)).thenReturn(mockOrder);
+        when(orderBatcher.placeOrder(userId, addressEntity)).thenReturn(mockOrder);
 
         ResponseEntity<?> response = orderJwtController.placeOrder("USER", userId, addressEntity);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(mockOrder, response.getBody());
-        verify(orderService, times(1)).placeOrder(userId, addressEntity);
+        verify(orderBatcher, times(1)).placeOrder(userId, addressEntity);
     }
 
     @Test
@@ -51,7 +63,50 @@ class OrderJwtControllerTest {
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertEquals("Token is NOT Valid to Add To Cart Book!!", response.getBody());
-        verify(orderService, never()).placeOrder(anyLong(), any());
+        verify(orderBatcher, never()).placeOrder(anyLong(), any());
+    }
+
+    // ---------------- placeOrderAsync ----------------
+    @Test
+    void testPlaceOrderAsync_WithUserRole_ReturnsAcceptedTicket() {
+        OrderStatusDto ticket = new OrderStatusDto("token-1", "QUEUED", null, null);
+        when(orderPipeline.submit(1L, addressEntity)).thenReturn(ticket);
+
+        ResponseEntity<?> response = orderJwtController.placeOrderAsync("USER", 1L, addressEntity);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(ticket, response.getBody());
+    }
+
+    @Test
+    void testPlaceOrderAsync_WithNonUserRole_ReturnsNotFound() {
+        ResponseEntity<?> response = orderJwtController.placeOrderAsync("ADMIN", 1L, addressEntity);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Token is NOT Valid to Place Order!!", response.getBody());
+        verify(orderPipeline, never()).submit(anyLong(), any());
+    }
+
+    // ---------------- getOrderStatus ----------------
+    @Test
+    void testGetOrderStatus_KnownToken_ReturnsStatus() {
+        OrderStatusDto placed = new OrderStatusDto("token-1", "PLACED", 9L, null);
+        when(orderPipeline.status(1L, "token-1")).thenReturn(Optional.of(placed));
+
+        ResponseEntity<?> response = orderJwtController.getOrderStatus("USER", 1L, "token-1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(placed, response.getBody());
+    }
+
+    @Test
+    void testGetOrderStatus_UnknownToken_ReturnsNotFound() {
+        when(orderPipeline.status(1L, "token-2")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = orderJwtController.getOrderStatus("USER", 1L, "token-2");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Order NOT Found with Token : token-2", response.getBody());
     }
 
     // ---------------- cancelOrder ----------------
@@ -81,21 +136,22 @@ class OrderJwtControllerTest {
     @Test
     void testGetAllOrders_WithAdminRole_ReturnsCreatedList() {
         Long userId = 1L;
-        when(orderService.getAllOrders(userId)).thenReturn("All Orders Data");
+        OrderFilterDto filter = new OrderFilterDto();
+        when(orderService.getAllOrders(filter)).thenReturn("All Orders Data");
 
-        ResponseEntity<?> response = orderJwtController.getAllOrders("ADMIN", userId);
+        ResponseEntity<?> response = orderJwtController.getAllOrders("ADMIN", userId, filter);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals("All Orders Data", response.getBody());
-        verify(orderService, times(1)).getAllOrders(userId);
+        verify(orderService, times(1)).getAllOrders(filter);
     }
 
     @Test
     void testGetAllOrders_WithNonAdminRole_ReturnsNotFound() {
-        ResponseEntity<?> response = orderJwtController.getAllOrders("USER", 1L);
+        ResponseEntity<?> response = orderJwtController.getAllOrders("USER", 1L, new OrderFilterDto());
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertEquals("Token is NOT Valid to Get All Cart!!", response.getBody());
-        verify(orderService, never()).getAllOrders(anyLong());
+        verify(orderService, never()).getAllOrders(any());
     }
 }
@@ -0,0 +1,135 @@
+package com.example.db;
+
+import com.example.entity.Address;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.Order;
+import com.example.entity.OrderItem;
+import com.example.entity.User;
+import com.example.repo.OrderItemRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the db/mysql scripts against a schema built the way MySQL gets it: H2 in MySQL mode with the MySQL dialect,
+ * so sequences are the same one-row tables Hibernate uses on MySQL. Each test seeds data the way an older release
+ * left it, applies a script and reads or writes through JPA afterwards.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mysql_migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.hibernate.cache.region_prefix=mysql_migration",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MysqlMigrationTest {
+    // Above the rows any other test here seeds
+    private static final long SEEDED_ID_BASE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void v009_copiesOldOrderBooksIntoOrderItems() {
+        // The join table the many-to-many Order.book left behind
+        jdbcTemplate.execute("create table if not exists ORDER_TBL_BOOK (order_order_id bigint not null, book_book_id bigint not null)");
+        jdbcTemplate.update("insert into BOOK_TBL (book_id, book_name, book_price, book_quantity, stock_stripes, version) values " +
+                "(9001, 'Dune', 20.0, 5, 0, 0), (9002, 'Emma', 8.5, 5, 0, 0)");
+        // As the old placeOrder wrote them: order_quantity is the number of cart lines, one join row per line.
+        // 9101: one line of three Dune. 9102: two lines of one Dune each and one line of two Emma
+        jdbcTemplate.update("insert into ORDER_TBL (order_id, order_quantity, order_price, cancel_order) values " +
+                "(9101, 1, 60.0, false), (9102, 3, 57.0, false)");
+        jdbcTemplate.update("insert into ORDER_TBL_BOOK values (9101, 9001), (9102, 9001), (9102, 9001), (9102, 9002)");
+
+        run("V009__order_items_backfill.sql");
+        // A second run finds every order already has lines
+        run("V009__order_items_backfill.sql");
+
+        // The copies per line were never stored, every join row comes back as one
+        List<OrderItem> single = orderItemRepo.findByOrderId(9101L);
+        assertEquals(1, single.size());
+        assertEquals(1, single.get(0).getQuantity());
+        assertEquals("Dune", single.get(0).getBookName());
+        assertEquals(20.0, single.get(0).getUnitPrice());
+
+        List<OrderItem> mixed = orderItemRepo.findByOrderId(9102L).stream().sorted(Comparator.comparing(OrderItem::getBookId)).toList();
+        assertEquals(List.of(9001L, 9002L), mixed.stream().map(OrderItem::getBookId).toList());
+        assertEquals(List.of(2, 1), mixed.stream().map(OrderItem::getQuantity).toList());
+    }
+
+    @Test
+    void v015_firstPooledIdsComeAfterExistingRows() {
+        // Rows written by the IDENTITY release, their IDs are what the sequences must start after
+        long top = SEEDED_ID_BASE + 100;
+        for (long id = SEEDED_ID_BASE + 1; id <= top; id++) {
+            jdbcTemplate.update("insert into USER_TBL (user_id, email, role) values (?, ?, 'USER')", id, "old" + id + "@example.com");
+            jdbcTemplate.update("insert into BOOK_TBL (book_id, book_name, book_price, book_quantity, stock_stripes, version) values (?, 'Old', 1.0, 1, 0, 0)", id);
+            jdbcTemplate.update("insert into CART_TBL (cart_id, user_user_id, book_book_id, cart_quantity, total_price, version) values (?, ?, ?, 1, 1.0, 0)", id, id, id);
+            jdbcTemplate.update("insert into ADDRESS_TBL (add_id, city) values (?, 'Pune')", id);
+            jdbcTemplate.update("insert into ORDER_TBL (order_id, address_add_id, user_user_id, order_quantity, order_price, cancel_order) values (?, ?, ?, 1, 1.0, false)", id, id, id);
+        }
+
+        run("V015__sequence_ids.sql");
+
+        // The first JPA insert of each entity in this context, so each draws its first block from the seeded table
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("new@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+            Book book = new Book();
+            book.setBookName("New");
+            book.setBookPrice(2.0);
+            book.setBookQuantity(1);
+            entityManager.persist(book);
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(2.0);
+            entityManager.persist(cart);
+            Order order = new Order();
+            order.setUser(user);
+            order.setAddress(new Address());
+            order.setCancelOrder(false);
+            entityManager.persist(order);
+            entityManager.flush();
+            return List.of(user.getUserId(), book.getBookId(), cart.getCartId(), order.getOrderId(), order.getAddress().getAddId());
+        });
+
+        assertEquals(List.of(top + 1, top + 1, top + 1, top + 1, top + 1), ids);
+    }
+
+    private void run(String script) {
+        new ResourceDatabasePopulator(new ClassPathResource("db/mysql/" + script)).execute(dataSource);
+    }
+}
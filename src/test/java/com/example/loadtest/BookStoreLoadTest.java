@@ -0,0 +1,211 @@
+package com.example.loadtest;
+
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import com.example.utils.TokenUtility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load generator: boots the application on in-memory H2, seeds users, books and carts, then drives
+ * a browse / product page / add to cart / place order mix over HTTP and prints throughput and latency percentiles
+ * per endpoint. Only runs when asked for:
+ * <pre>
+ * mvn test -Dtest=BookStoreLoadTest -Dloadtest=true -Dloadtest.users=200 -Dloadtest.books=500 -Dloadtest.concurrency=32 -Dloadtest.requests=20000
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class BookStoreLoadTest {
+    private static final int USERS = Integer.getInteger("loadtest.users", 100);
+    private static final int BOOKS = Integer.getInteger("loadtest.books", 200);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 10_000);
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+
+    // Share of each endpoint in the mix, in percent
+    private static final int BROWSE_PERCENT = 30;
+    private static final int GET_BOOK_PERCENT = 45;
+    private static final int ADD_TO_CART_PERCENT = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private TokenUtility tokenUtility;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    @Test
+    void runMixedLoad() throws Exception {
+        List<String> tokens = seedUsers();
+        assertTrue(tokens.size() >= CONCURRENCY, "need at least one user per worker");
+        List<Long> bookIds = seedBooksAndCarts(tokens.size());
+
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        AtomicLong remaining = new AtomicLong(REQUESTS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int worker = 0; worker < CONCURRENCY; worker++) {
+            Random random = new Random(SEED + worker);
+            // Each worker plays its own users, like real shoppers who never check out twice at the same moment
+            List<String> workerTokens = new ArrayList<>();
+            for (int i = worker; i < tokens.size(); i += CONCURRENCY) {
+                workerTokens.add(tokens.get(i));
+            }
+            futures.add(workers.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    nextRequest(random, workerTokens, bookIds);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        report(seconds);
+        long failures = stats.values().stream().mapToLong(s -> s.failures.get()).sum();
+        assertEquals(0, failures, "requests answered with an error status");
+    }
+
+    private void nextRequest(Random random, List<String> tokens, List<Long> bookIds) throws Exception {
+        String token = tokens.get(random.nextInt(tokens.size()));
+        Long bookId = bookIds.get(random.nextInt(bookIds.size()));
+        int roll = random.nextInt(100);
+        if (roll < BROWSE_PERCENT) {
+            send("GET /book/allBooks", HttpRequest.newBuilder(uri("/book/allBooks")).GET());
+        } else if (roll < BROWSE_PERCENT + GET_BOOK_PERCENT) {
+            send("GET /book/getBook", HttpRequest.newBuilder(uri("/book/getBook/" + bookId)).GET());
+        } else if (roll < BROWSE_PERCENT + GET_BOOK_PERCENT + ADD_TO_CART_PERCENT) {
+            send("POST /cartApi/addTooCart", HttpRequest.newBuilder(uri("/cartApi/addTooCart/" + bookId))
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+        } else {
+            send("POST /orderApi/orderPlace", HttpRequest.newBuilder(uri("/orderApi/orderPlace"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Load Test\",\"city\":\"Pune\",\"address\":\"1 Main Road\"}")));
+        }
+    }
+
+    private void send(String endpoint, HttpRequest.Builder request) throws Exception {
+        long begin = System.nanoTime();
+        HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        long elapsed = System.nanoTime() - begin;
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+        endpointStats.latencies.add(elapsed);
+        if (response.statusCode() >= 400) {
+            endpointStats.failures.incrementAndGet();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private List<String> seedUsers() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFirstName("Load");
+            user.setLastName("User" + i);
+            user.setEmail("load" + i + "@example.com");
+            user.setRole("USER");
+            users.add(user);
+        }
+        List<String> tokens = new ArrayList<>(USERS);
+        for (User user : userRepo.saveAll(users)) {
+            tokens.add(tokenUtility.createToken(user.getUserId(), user.getRole()));
+        }
+        return tokens;
+    }
+
+    private List<Long> seedBooksAndCarts(int userCount) {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setBookName("Load Test Book " + i);
+            book.setBookAuthor("Author " + (i % 50));
+            book.setBookDescription("Seeded for the load test");
+            book.setBookPrice(100.0 + i % 400);
+            // Enough stock that orders never run dry during a run
+            book.setBookQuantity(1_000_000);
+            books.add(book);
+        }
+        List<Long> bookIds = new ArrayList<>(BOOKS);
+        bookRepo.saveAll(books).forEach(book -> bookIds.add(book.getBookId()));
+
+        // Every user starts with one cart line so early orders have something to buy
+        List<Cart> carts = new ArrayList<>(userCount);
+        List<User> users = userRepo.findAll();
+        for (int i = 0; i < users.size(); i++) {
+            Cart cart = new Cart();
+            cart.setUser(users.get(i));
+            cart.setBook(books.get(i % books.size()));
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(books.get(i % books.size()).getBookPrice());
+            carts.add(cart);
+        }
+        cartRepo.saveAll(carts);
+        return bookIds;
+    }
+
+    private void report(double seconds) {
+        long total = stats.values().stream().mapToLong(s -> s.latencies.size()).sum();
+        System.out.printf("%nLoad test: %d requests, %d workers, %.1f s, %.0f req/s%n", total, CONCURRENCY, seconds, total / seconds);
+        System.out.printf("%-28s %8s %8s %10s %10s %10s %10s%n", "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        new TreeMap<>(stats).forEach((endpoint, endpointStats) -> {
+            long[] sorted = endpointStats.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-28s %8d %8d %10.0f %10.2f %10.2f %10.2f%n", endpoint, sorted.length, endpointStats.failures.get(),
+                    sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        });
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static class EndpointStats {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
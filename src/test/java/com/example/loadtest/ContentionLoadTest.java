@@ -0,0 +1,157 @@
+package com.example.loadtest;
+
+import com.example.dto.DtoToBookEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import com.example.service.BookService;
+import com.example.service.CartService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Contention benchmark for the versioned Book and Cart rows: parallel writers click "+1" on a few shared cart lines
+ * while an admin keeps editing the same books. Prints throughput, how many attempts lost a version check and were
+ * retried, how many calls gave up, and the lost updates (clicks reported as done that are missing from the database,
+ * which must stay at zero). Only runs when asked for:
+ * <pre>
+ * mvn test -Dtest=ContentionLoadTest -Dloadtest=true -Dloadtest.writers=32 -Dloadtest.lines=4 -Dloadtest.clicks=20000
+ * </pre>
+ * Run again with -Dbookstore.retry.max-attempts=1 to see the same load without retries.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contention;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ContentionLoadTest {
+    private static final int WRITERS = Integer.getInteger("loadtest.writers", 16);
+    private static final int LINES = Integer.getInteger("loadtest.lines", 4);
+    private static final int CLICKS = Integer.getInteger("loadtest.clicks", 5_000);
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+
+    // One book edit for every this many clicks
+    private static final int CLICKS_PER_BOOK_EDIT = 20;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void runContendedWrites() throws Exception {
+        List<Cart> lines = seedLines();
+        AtomicLong remaining = new AtomicLong(CLICKS);
+        AtomicLong applied = new AtomicLong();
+        AtomicLong gaveUp = new AtomicLong();
+        AtomicLong bookEdits = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int worker = 0; worker < WRITERS; worker++) {
+            Random random = new Random(SEED + worker);
+            futures.add(workers.submit(() -> {
+                long click;
+                while ((click = remaining.getAndDecrement()) > 0) {
+                    Cart line = lines.get(random.nextInt(lines.size()));
+                    try {
+                        if (click % CLICKS_PER_BOOK_EDIT == 0) {
+                            DtoToBookEntity update = new DtoToBookEntity();
+                            update.setBookPrice(line.getBook().getBookPrice());
+                            update.setBookQuantity(1_000_000 + (int) click);
+                            bookService.updateBook(line.getBook().getBookId(), update);
+                            bookEdits.incrementAndGet();
+                        } else {
+                            cartService.updateQuantityInCartAdd(line.getUser().getUserId(), line.getCartId());
+                            applied.incrementAndGet();
+                        }
+                    } catch (CustomiseException e) {
+                        gaveUp.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        long stored = 0;
+        for (Cart line : lines) {
+            stored += cartRepo.findById(line.getCartId()).get().getCartQuantity() - 1;
+        }
+        long lost = applied.get() - stored;
+        long conflicts = conflicts("CartServiceImpl") + conflicts("BookServiceImpl");
+        System.out.printf("%nContention: %d writers on %d cart lines, %d calls in %.1f s, %.0f calls/s%n",
+                WRITERS, LINES, CLICKS, seconds, CLICKS / seconds);
+        System.out.printf("%-18s %10d%n%-18s %10d%n%-18s %10d%n%-18s %10d%n%-18s %10d%n",
+                "clicks applied", applied.get(), "book edits", bookEdits.get(), "version conflicts", conflicts,
+                "gave up", gaveUp.get(), "lost updates", lost);
+        assertEquals(0, lost, "clicks reported as applied but missing from the database");
+    }
+
+    // Attempts that lost a version check, counted by the service metrics aspect
+    private long conflicts(String service) {
+        return meterRegistry.find("bookstore.service.calls")
+                .tag("service", service)
+                .tag("exception", "ObjectOptimisticLockingFailureException")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private List<Cart> seedLines() {
+        List<Cart> lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            User user = new User();
+            user.setEmail("contention" + i + "@example.com");
+            user.setRole("USER");
+            userRepo.save(user);
+
+            Book book = new Book();
+            book.setBookName("Contended Book " + i);
+            book.setBookPrice(100.0);
+            // Enough stock that a click is never refused for quantity
+            book.setBookQuantity(1_000_000);
+            bookRepo.save(book);
+
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(100.0);
+            lines.add(cartRepo.save(cart));
+        }
+        return lines;
+    }
+}
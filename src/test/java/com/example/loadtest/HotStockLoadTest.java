@@ -0,0 +1,162 @@
+package com.example.loadtest;
+
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import com.example.service.BookService;
+import com.example.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Flash-sale benchmark: many buyers check out the same title at once, first with its stock in the single BOOK_TBL row,
+ * then with the stock split over stripes. Prints orders per second and latency percentiles for both runs.
+ * Only runs when asked for:
+ * <pre>
+ * mvn test -Dtest=HotStockLoadTest -Dloadtest=true -Dloadtest.buyers=64 -Dloadtest.orders=5000 -Dloadtest.stripes=16
+ * </pre>
+ * Row lock contention is what striping removes, so numbers from MySQL tell more than the in-memory H2 default:
+ * add -Dspring.profiles.active=dev -Dloadtest.url=jdbc:mysql://...
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${loadtest.url:jdbc:h2:mem:hotstock;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1}",
+        // One connection per buyer, so buyers wait on the stock row and not on the pool
+        "spring.datasource.hikari.maximum-pool-size=${loadtest.buyers:64}",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class HotStockLoadTest {
+    private static final int BUYERS = Integer.getInteger("loadtest.buyers", 64);
+    private static final int ORDERS = Integer.getInteger("loadtest.orders", 5_000);
+    private static final int STRIPES = Integer.getInteger("loadtest.stripes", 16);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Test
+    void singleRowVersusStripes() throws Exception {
+        Run singleRow = run("single row", 0);
+        Run striped = run(STRIPES + " stripes", STRIPES);
+
+        System.out.printf("%nHot title checkout: %d buyers, %d orders of one unit each%n", BUYERS, ORDERS);
+        System.out.printf("%-14s %10s %8s %10s %10s %10s%n", "stock", "orders/s", "errors", "p50 ms", "p99 ms", "p999 ms");
+        for (Run run : List.of(singleRow, striped)) {
+            System.out.printf("%-14s %10.0f %8d %10.2f %10.2f %10.2f%n", run.name, ORDERS / run.seconds, run.failures,
+                    percentile(run.latencies, 0.50), percentile(run.latencies, 0.99), percentile(run.latencies, 0.999));
+        }
+        assertEquals(0, singleRow.failures + striped.failures, "checkouts that failed");
+    }
+
+    private Run run(String name, int stripes) throws Exception {
+        Long bookId = seedBook(stripes);
+        List<Long> buyers = seedBuyers(bookId);
+
+        ExecutorService workers = Executors.newFixedThreadPool(BUYERS);
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong failures = new AtomicLong();
+        long[] latencies = new long[ORDERS];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int worker = 0; worker < BUYERS; worker++) {
+            futures.add(workers.submit(() -> {
+                start.await();
+                int i;
+                while ((i = next.getAndIncrement()) < ORDERS) {
+                    long begin = System.nanoTime();
+                    try {
+                        orderService.placeOrder(buyers.get(i), new DtoToAddressEntity());
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        workers.shutdown();
+
+        // Every successful order took exactly one unit
+        bookService.refreshStripedStock();
+        assertEquals(failures.get(), (long) bookRepo.findById(bookId).get().getBookQuantity(), "units left after the " + name + " run");
+        Arrays.sort(latencies);
+        return new Run(name, seconds, failures.get(), latencies);
+    }
+
+    private Long seedBook(int stripes) {
+        Book book = new Book();
+        book.setBookName("Launch Title " + System.nanoTime());
+        book.setBookPrice(299.0);
+        book.setBookQuantity(ORDERS);
+        bookRepo.save(book);
+        if (stripes > 0) {
+            bookService.updateStockStripes(book.getBookId(), stripes);
+        }
+        return book.getBookId();
+    }
+
+    // One buyer per order, each with the title in the cart once
+    private List<Long> seedBuyers(Long bookId) {
+        Book book = bookRepo.findById(bookId).get();
+        List<User> users = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            User user = new User();
+            user.setEmail("launch" + bookId + "-" + i + "@example.com");
+            user.setRole("USER");
+            users.add(user);
+        }
+        List<Long> buyers = new ArrayList<>(ORDERS);
+        List<Cart> carts = new ArrayList<>(ORDERS);
+        for (User user : userRepo.saveAll(users)) {
+            buyers.add(user.getUserId());
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(book.getBookPrice());
+            carts.add(cart);
+        }
+        cartRepo.saveAll(carts);
+        return buyers;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Run(String name, double seconds, long failures, long[] latencies) {
+    }
+}
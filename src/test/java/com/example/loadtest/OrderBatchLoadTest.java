@@ -0,0 +1,166 @@
+package com.example.loadtest;
+
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.order.OrderBatcher;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import com.example.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkout burst benchmark: many buyers place orders at once, first one transaction per order, then grouped by the
+ * order batcher. Prints committed orders per second, latency percentiles and the mean batch size. Only runs when asked for:
+ * <pre>
+ * mvn test -Dtest=OrderBatchLoadTest -Dloadtest=true -Dloadtest.buyers=64 -Dloadtest.orders=5000 -Dloadtest.batch=50
+ * </pre>
+ * Batching saves commits, so the default is a file database that writes on every commit; a real server tells more:
+ * add -Dspring.profiles.active=dev -Dloadtest.url=jdbc:mysql://...
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${loadtest.url:jdbc:h2:file:./target/loadtest/orderbatch;LOCK_TIMEOUT=30000}",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // One connection per buyer, so unbatched buyers are limited by commits and not by the pool
+        "spring.datasource.hikari.maximum-pool-size=${loadtest.buyers:64}",
+        "spring.jpa.show-sql=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class OrderBatchLoadTest {
+    private static final int BUYERS = Integer.getInteger("loadtest.buyers", 64);
+    private static final int ORDERS = Integer.getInteger("loadtest.orders", 5_000);
+    private static final int BATCH = Integer.getInteger("loadtest.batch", 50);
+    private static final int BOOKS = 100;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Test
+    void singleVersusGroupCommit() throws Exception {
+        Run single = run("one per commit", false);
+        Run grouped = run("group commit", true);
+
+        System.out.printf("%nCheckout burst: %d buyers, %d orders of two books each%n", BUYERS, ORDERS);
+        System.out.printf("%-16s %10s %8s %10s %10s %12s%n", "mode", "orders/s", "errors", "p50 ms", "p99 ms", "orders/batch");
+        for (Run run : List.of(single, grouped)) {
+            System.out.printf("%-16s %10.0f %8d %10.2f %10.2f %12.1f%n", run.name, ORDERS / run.seconds, run.failures,
+                    percentile(run.latencies, 0.50), percentile(run.latencies, 0.99), run.meanBatch);
+        }
+        assertEquals(0, single.failures + grouped.failures, "checkouts that failed");
+    }
+
+    private Run run(String name, boolean batched) throws Exception {
+        List<Long> buyers = seedBuyers();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderBatcher batcher = new OrderBatcher(orderService, cartStore, registry, batched, BATCH, 2, 30_000);
+
+        ExecutorService workers = Executors.newFixedThreadPool(BUYERS);
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong failures = new AtomicLong();
+        long[] latencies = new long[ORDERS];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int worker = 0; worker < BUYERS; worker++) {
+            futures.add(workers.submit(() -> {
+                start.await();
+                int i;
+                while ((i = next.getAndIncrement()) < ORDERS) {
+                    long begin = System.nanoTime();
+                    try {
+                        batcher.placeOrder(buyers.get(i), new DtoToAddressEntity());
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        workers.shutdown();
+        batcher.stop();
+
+        double meanBatch = batched ? registry.get("bookstore.order.batch.size").summary().mean() : 1;
+        Arrays.sort(latencies);
+        return new Run(name, seconds, failures.get(), latencies, meanBatch);
+    }
+
+    // One buyer per order, each with two of a hundred well stocked books in the cart
+    private List<Long> seedBuyers() {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setBookName("Burst Title " + i + " " + System.nanoTime());
+            book.setBookPrice(199.0);
+            book.setBookQuantity(1_000_000);
+            books.add(book);
+        }
+        books = bookRepo.saveAll(books);
+        List<User> users = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            User user = new User();
+            user.setEmail("burst" + System.nanoTime() + "-" + i + "@example.com");
+            user.setRole("USER");
+            users.add(user);
+        }
+        List<Long> buyers = new ArrayList<>(ORDERS);
+        List<Cart> carts = new ArrayList<>(ORDERS * 2);
+        int i = 0;
+        for (User user : userRepo.saveAll(users)) {
+            buyers.add(user.getUserId());
+            for (int line = 0; line < 2; line++) {
+                Book book = books.get((i * 2 + line) % BOOKS);
+                Cart cart = new Cart();
+                cart.setUser(user);
+                cart.setBook(book);
+                cart.setCartQuantity(1);
+                cart.setTotalPrice(book.getBookPrice());
+                carts.add(cart);
+            }
+            i++;
+        }
+        cartRepo.saveAll(carts);
+        return buyers;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Run(String name, double seconds, long failures, long[] latencies, double meanBatch) {
+    }
+}
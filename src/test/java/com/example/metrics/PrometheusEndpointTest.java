@@ -0,0 +1,35 @@
+package com.example.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Spring Boot tests switch metric exporters off unless asked for
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class PrometheusEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void scrapeShowsEndpointAndServiceHistograms() {
+        restTemplate.getForEntity("/book/allBooks", String.class);
+
+        ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        assertTrue(scrape.getBody().contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.getBody().contains("uri=\"/book/allBooks\""));
+        assertTrue(scrape.getBody().contains("bookstore_service_calls_seconds_bucket{"));
+        assertTrue(scrape.getBody().contains("method=\"allBooks\""));
+        assertTrue(scrape.getBody().contains("bookstore_service_active{"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.metrics;
+
+import com.example.cache.BookCache;
+import com.example.dto.BookEntityToDto;
+import com.example.exception.CustomiseException;
+import com.example.repo.StockHoldRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.service.BookService;
+import com.example.service.ReservationService;
+import com.example.serviceImpl.BookServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private BookCache bookCache;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        bookCache = Mockito.mock(BookCache.class);
+        BookServiceImpl target = new BookServiceImpl(null, bookCache, Mockito.mock(BookSearchIndex.class), Mockito.mock(BookSuggestIndex.class));
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        bookService = factory.getProxy();
+    }
+
+    @Test
+    void testSuccessfulCall_Recorded() {
+        when(bookCache.getBook(1L)).thenReturn(Optional.of(new BookEntityToDto(1L, "Java", "Author", null, null, 10.0, 1)));
+
+        bookService.getBook(1L);
+        bookService.getBook(1L);
+
+        Timer timer = registry.get(ServiceMetricsAspect.CALLS)
+                .tags("service", "BookServiceImpl", "method", "getBook", "outcome", "SUCCESS").timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void testFailedCall_CountedByExceptionAndRethrown() {
+        when(bookCache.getBook(2L)).thenReturn(Optional.empty());
+
+        assertThrows(CustomiseException.class, () -> bookService.getBook(2L));
+
+        Timer timer = registry.get(ServiceMetricsAspect.CALLS)
+                .tags("method", "getBook", "outcome", "ERROR", "exception", "CustomiseException").timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void testActiveGauge_BackToZeroAfterCall() {
+        when(bookCache.getBook(1L)).thenAnswer(invocation -> {
+            Gauge active = registry.get(ServiceMetricsAspect.ACTIVE).tags("method", "getBook").gauge();
+            assertEquals(1.0, active.value());
+            return Optional.of(new BookEntityToDto(1L, "Java", "Author", null, null, 10.0, 1));
+        });
+
+        bookService.getBook(1L);
+
+        assertEquals(0.0, registry.get(ServiceMetricsAspect.ACTIVE).tags("method", "getBook").gauge().value());
+    }
+
+    @Test
+    void testOverloads_ShareOneSetOfMeters() {
+        StockHoldRepo stockHoldRepo = Mockito.mock(StockHoldRepo.class);
+        ReservationServiceImpl target = new ReservationServiceImpl(stockHoldRepo, null, Mockito.mock(PlatformTransactionManager.class),
+                true, Duration.ofMinutes(15), 500);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        ReservationService reservationService = factory.getProxy();
+        doAnswer(invocation -> {
+            assertEquals(1.0, registry.get(ServiceMetricsAspect.ACTIVE).tags("method", "releaseAll").gauge().value());
+            return null;
+        }).when(stockHoldRepo).deleteAllByUserIdIn(anyCollection());
+
+        reservationService.releaseAll(1L);
+        reservationService.releaseAll(List.of(1L, 2L));
+
+        Timer timer = registry.get(ServiceMetricsAspect.CALLS)
+                .tags("method", "releaseAll", "outcome", "SUCCESS").timer();
+        assertEquals(2, timer.count());
+        assertEquals(1, registry.get(ServiceMetricsAspect.ACTIVE).tags("method", "releaseAll").gauges().size());
+    }
+}
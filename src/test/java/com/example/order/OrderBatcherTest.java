@@ -0,0 +1,194 @@
+package com.example.order;
+
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Order;
+import com.example.exception.CustomiseException;
+import com.example.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OrderBatcherTest {
+    private static final int BATCH = 4;
+
+    private final OrderService orderService = Mockito.mock(OrderService.class);
+    private final CartStore cartStore = Mockito.mock(CartStore.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OrderBatcher batcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        batcher.stop();
+    }
+
+    @Test
+    void testConcurrentOrders_ShareOneCommit() throws Exception {
+        // A long delay, the batch is closed by reaching its size
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, BATCH, 10_000, 5_000);
+        when(orderService.placeOrders(any())).thenAnswer(invocation -> ordersFor(invocation.getArgument(0)));
+
+        List<Order> placed = placeInParallel(1L, 2L, 3L, 4L);
+
+        verify(orderService, times(1)).placeOrders(any());
+        verify(orderService, never()).placeOrder(anyLong(), any());
+        assertEquals(List.of(1L, 2L, 3L, 4L), placed.stream().map(Order::getOrderId).toList());
+        assertEquals(4.0, registry.get(OrderBatcher.BATCH_SIZE).summary().totalAmount());
+    }
+
+    @Test
+    void testOrderLeftOutOfBatch_PlacedByItsCaller() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, BATCH, 10_000, 5_000);
+        when(orderService.placeOrders(any())).thenAnswer(invocation -> {
+            Map<Long, Order> orders = ordersFor(invocation.getArgument(0));
+            orders.remove(3L);
+            return orders;
+        });
+        Set<String> placedOn = ConcurrentHashMap.newKeySet();
+        when(orderService.placeOrder(eq(3L), any())).thenAnswer(invocation -> {
+            placedOn.add(Thread.currentThread().getName());
+            throw new CustomiseException("Book NOT Available in Requested Quantity : [9]");
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(BATCH);
+        List<Future<Order>> futures = new ArrayList<>();
+        for (long userId = 1; userId <= BATCH; userId++) {
+            long buyer = userId;
+            futures.add(callers.submit(() -> batcher.placeOrder(buyer, new DtoToAddressEntity())));
+        }
+
+        assertEquals(1L, futures.get(0).get(5, TimeUnit.SECONDS).getOrderId());
+        assertEquals(2L, futures.get(1).get(5, TimeUnit.SECONDS).getOrderId());
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> futures.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals("Book NOT Available in Requested Quantity : [9]", failed.getCause().getMessage());
+        assertEquals(4L, futures.get(3).get(5, TimeUnit.SECONDS).getOrderId());
+        verify(orderService, times(1)).placeOrder(anyLong(), any());
+        assertFalse(placedOn.contains("order-batcher"));
+        assertEquals(1.0, registry.get(OrderBatcher.FALLBACKS).counter().count());
+        callers.shutdown();
+    }
+
+    @Test
+    void testFailedBatch_EveryCallerPlacesItsOwn() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, BATCH, 10_000, 5_000);
+        when(orderService.placeOrders(any())).thenThrow(new CustomiseException("Cart Changed While Placing the Order, Please Try Again"));
+        when(orderService.placeOrder(anyLong(), any())).thenAnswer(invocation -> order(invocation.getArgument(0)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), placeInParallel(1L, 2L, 3L, 4L).stream().map(Order::getOrderId).toList());
+        verify(orderService, times(4)).placeOrder(anyLong(), any());
+        assertEquals(4.0, registry.get(OrderBatcher.FALLBACKS).counter().count());
+    }
+
+    @Test
+    void testErrorInBatch_FailsItsCallersAndCommitterCarriesOn() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, 2, 10_000, 5_000);
+        when(orderService.placeOrders(any()))
+                .thenThrow(new OutOfMemoryError("Java heap space"))
+                .thenAnswer(invocation -> ordersFor(invocation.getArgument(0)));
+
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> placeInParallel(1L, 2L));
+        assertInstanceOf(OutOfMemoryError.class, failed.getCause().getCause());
+        assertEquals(List.of(3L, 4L), placeInParallel(3L, 4L).stream().map(Order::getOrderId).toList());
+        verify(orderService, never()).placeOrder(anyLong(), any());
+    }
+
+    @Test
+    void testSlowBatch_CallerStopsWaiting() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, 2, 10_000, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.placeOrders(any())).thenAnswer(invocation -> {
+            release.await();
+            return ordersFor(invocation.getArgument(0));
+        });
+
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> placeInParallel(1L, 2L));
+        assertEquals("Order Is Still Being Placed, Check Your Orders Before Trying Again", failed.getCause().getMessage());
+        release.countDown();
+    }
+
+    @Test
+    void testAfterStop_PlacesDirectly() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, BATCH, 10_000, 5_000);
+        when(orderService.placeOrder(eq(1L), any())).thenReturn(order(1L));
+        batcher.stop();
+
+        assertEquals(1L, batcher.placeOrder(1L, new DtoToAddressEntity()).getOrderId());
+        verify(orderService, never()).placeOrders(any());
+    }
+
+    @Test
+    void testSameUserTwice_SecondPlacedAfterBatch() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, BATCH, 10_000, 5_000);
+        when(orderService.placeOrders(any())).thenAnswer(invocation -> ordersFor(invocation.getArgument(0)));
+        when(orderService.placeOrder(anyLong(), any())).thenAnswer(invocation -> order(invocation.getArgument(0)));
+
+        placeInParallel(1L, 1L, 2L, 3L);
+
+        verify(orderService, times(1)).placeOrders(argThat(batch -> batch.keySet().equals(Set.of(1L, 2L, 3L))));
+        verify(orderService, times(1)).placeOrder(eq(1L), any());
+    }
+
+    @Test
+    void testCartStore_FlushedBeforeTheOrderTransaction() throws Exception {
+        batcher = new OrderBatcher(orderService, cartStore, registry, true, 2, 10_000, 5_000);
+        when(orderService.placeOrders(any())).thenAnswer(invocation -> ordersFor(invocation.getArgument(0)));
+
+        placeInParallel(1L, 2L);
+
+        verify(cartStore).flush(1L);
+        verify(cartStore).flush(2L);
+        InOrder inOrder = inOrder(cartStore, orderService);
+        inOrder.verify(cartStore, times(2)).flush(anyLong());
+        inOrder.verify(orderService).placeOrders(any());
+    }
+
+    @Test
+    void testDisabled_PlacesDirectly() {
+        batcher = new OrderBatcher(orderService, cartStore, registry, false, BATCH, 10_000, 5_000);
+        when(orderService.placeOrder(eq(1L), any())).thenReturn(order(1L));
+
+        assertEquals(1L, batcher.placeOrder(1L, new DtoToAddressEntity()).getOrderId());
+        verify(orderService, never()).placeOrders(any());
+    }
+
+    private List<Order> placeInParallel(Long... userIds) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(userIds.length);
+        List<Future<Order>> futures = new ArrayList<>();
+        for (Long userId : userIds) {
+            futures.add(callers.submit(() -> batcher.placeOrder(userId, new DtoToAddressEntity())));
+        }
+        List<Order> placed = new ArrayList<>();
+        for (Future<Order> future : futures) {
+            placed.add(future.get(5, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        return placed;
+    }
+
+    private static Map<Long, Order> ordersFor(Map<Long, DtoToAddressEntity> addressesByUserId) {
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        addressesByUserId.keySet().forEach(userId -> orders.put(userId, order(userId)));
+        return orders;
+    }
+
+    // Order IDs follow user IDs, so each caller can check it got its own order back
+    private static Order order(Long userId) {
+        Order order = new Order();
+        order.setOrderId(userId);
+        return order;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.order;
+
+import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderStatusDto;
+import com.example.entity.Order;
+import com.example.exception.CustomiseException;
+import com.example.repo.CartRepo;
+import com.example.repo.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class OrderPipelineTest {
+
+    private OrderBatcher orderBatcher;
+    private UserRepo userRepo;
+    private CartRepo cartRepo;
+    private SimpleMeterRegistry registry;
+    private OrderPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        orderBatcher = Mockito.mock(OrderBatcher.class);
+        userRepo = Mockito.mock(UserRepo.class);
+        cartRepo = Mockito.mock(CartRepo.class);
+        registry = new SimpleMeterRegistry();
+        when(userRepo.existsById(anyLong())).thenReturn(true);
+        when(cartRepo.existsByUserUserId(anyLong())).thenReturn(true);
+        // One worker and room for one waiting order
+        pipeline = new OrderPipeline(orderBatcher, userRepo, cartRepo, registry, 1, 1, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.drainOnShutdown();
+    }
+
+    @Test
+    void testSubmit_PlacesOrderInBackground() throws InterruptedException {
+        Order order = new Order();
+        order.setOrderId(42L);
+        when(orderBatcher.placeOrder(eq(1L), any())).thenReturn(order);
+
+        OrderStatusDto queued = pipeline.submit(1L, new DtoToAddressEntity());
+
+        assertEquals("QUEUED", queued.getStatus());
+        OrderStatusDto done = awaitDone(1L, queued.getOrderToken());
+        assertEquals("PLACED", done.getStatus());
+        assertEquals(42L, done.getOrderId());
+        assertEquals(1, registry.get(OrderPipeline.PROCESSING).tag("outcome", "PLACED").timer().count());
+        assertEquals(1, registry.get(OrderPipeline.QUEUE_WAIT).timer().count());
+    }
+
+    @Test
+    void testSubmit_FailedOrderKeepsReason() throws InterruptedException {
+        when(orderBatcher.placeOrder(eq(1L), any())).thenThrow(new CustomiseException("Book NOT Available in Requested Quantity : [7]"));
+
+        OrderStatusDto done = awaitDone(1L, pipeline.submit(1L, new DtoToAddressEntity()).getOrderToken());
+
+        assertEquals("FAILED", done.getStatus());
+        assertEquals("Book NOT Available in Requested Quantity : [7]", done.getMessage());
+        assertNull(done.getOrderId());
+        assertEquals(1, registry.get(OrderPipeline.PROCESSING).tag("outcome", "FAILED").timer().count());
+    }
+
+    @Test
+    void testSubmit_EmptyCartRejectedUpFront() {
+        when(cartRepo.existsByUserUserId(1L)).thenReturn(false);
+
+        CustomiseException exception = assertThrows(CustomiseException.class, () -> pipeline.submit(1L, new DtoToAddressEntity()));
+
+        assertEquals("Cart is Empty, Nothing to Order", exception.getMessage());
+        verify(orderBatcher, never()).placeOrder(anyLong(), any());
+    }
+
+    @Test
+    void testSubmit_FullQueueTurnsOrdersAway() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch working = new CountDownLatch(1);
+        when(orderBatcher.placeOrder(anyLong(), any())).thenAnswer(invocation -> {
+            working.countDown();
+            release.await();
+            return new Order();
+        });
+
+        pipeline.submit(1L, new DtoToAddressEntity());
+        assertTrue(working.await(5, TimeUnit.SECONDS));
+        pipeline.submit(2L, new DtoToAddressEntity());
+        assertEquals(1.0, registry.get(OrderPipeline.QUEUE_DEPTH).gauge().value());
+
+        CustomiseException exception = assertThrows(CustomiseException.class, () -> pipeline.submit(3L, new DtoToAddressEntity()));
+        assertEquals("Too Many Orders in Progress, Please Try Again Later", exception.getMessage());
+        assertEquals(1.0, registry.get(OrderPipeline.REJECTED).counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void testSubmit_SecondClickGetsSameTicket() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderBatcher.placeOrder(anyLong(), any())).thenAnswer(invocation -> {
+            release.await();
+            return new Order();
+        });
+
+        String first = pipeline.submit(1L, new DtoToAddressEntity()).getOrderToken();
+        String second = pipeline.submit(1L, new DtoToAddressEntity()).getOrderToken();
+        release.countDown();
+
+        assertEquals(first, second);
+        awaitDone(1L, first);
+        verify(orderBatcher, times(1)).placeOrder(anyLong(), any());
+    }
+
+    @Test
+    void testStatus_OtherUsersTokenNotFound() throws InterruptedException {
+        when(orderBatcher.placeOrder(anyLong(), any())).thenReturn(new Order());
+        String token = pipeline.submit(1L, new DtoToAddressEntity()).getOrderToken();
+        awaitDone(1L, token);
+
+        assertTrue(pipeline.status(2L, token).isEmpty());
+        assertTrue(pipeline.status(1L, "no-such-token").isEmpty());
+    }
+
+    private OrderStatusDto awaitDone(Long userId, String token) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            OrderStatusDto status = pipeline.status(userId, token).orElseThrow();
+            if ("PLACED".equals(status.getStatus()) || "FAILED".equals(status.getStatus())) {
+                return status;
+            }
+            Thread.sleep(5);
+        }
+        return fail("order " + token + " still not done");
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.repo;
+
+import com.example.dto.OrderSummaryDto;
+import com.example.entity.Order;
+import com.example.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the order listing query against H2, null filters must be ignored and pages must not overlap.
+ */
+@DataJpaTest
+class OrderRepoTest {
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("alice@example.com");
+        bob = user("bob@example.com");
+        order(alice, LocalDate.of(2025, 1, 5), false);
+        order(bob, LocalDate.of(2025, 1, 10), false);
+        order(alice, LocalDate.of(2025, 2, 1), true);
+        order(alice, LocalDate.of(2025, 2, 15), false);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindSummariesBefore_NoFiltersPagesNewestFirst() {
+        List<OrderSummaryDto> firstPage = orderRepo.findSummariesBefore(Long.MAX_VALUE, null, null, null, null, Limit.of(2));
+        List<OrderSummaryDto> secondPage = orderRepo.findSummariesBefore(firstPage.get(1).getOrderId(), null, null, null, null, Limit.of(2));
+
+        assertEquals(List.of(LocalDate.of(2025, 2, 15), LocalDate.of(2025, 2, 1)), dates(firstPage));
+        assertEquals(List.of(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 5)), dates(secondPage));
+    }
+
+    @Test
+    void testFindSummariesBefore_FiltersByStatusUserAndDate() {
+        assertEquals(3, orderRepo.findSummariesBefore(Long.MAX_VALUE, false, null, null, null, Limit.of(10)).size());
+        assertEquals(1, orderRepo.findSummariesBefore(Long.MAX_VALUE, true, null, null, null, Limit.of(10)).size());
+
+        List<OrderSummaryDto> aliceActive = orderRepo.findSummariesBefore(Long.MAX_VALUE, false, alice.getUserId(), null, null, Limit.of(10));
+        assertEquals(List.of(LocalDate.of(2025, 2, 15), LocalDate.of(2025, 1, 5)), dates(aliceActive));
+        assertEquals(alice.getUserId(), aliceActive.get(0).getUserId());
+
+        List<OrderSummaryDto> january = orderRepo.findSummariesBefore(Long.MAX_VALUE, null, null,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), Limit.of(10));
+        assertEquals(List.of(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 5)), dates(january));
+    }
+
+    private List<LocalDate> dates(List<OrderSummaryDto> orders) {
+        return orders.stream().map(OrderSummaryDto::getOrderDate).collect(Collectors.toList());
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole("USER");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void order(User user, LocalDate date, boolean cancelled) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(date);
+        order.setOrderPrice(100.0);
+        order.setOrderQuantity(1);
+        order.setCancelOrder(cancelled);
+        entityManager.persist(order);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.repo;
+
+import com.example.entity.Book;
+import com.example.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Repeated Book and User lookups and repeated findByEmail queries must be answered by the second-level cache.
+ */
+@DataJpaTest
+// Rows written by an open transaction are never cached, so every step here runs in its own transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepo.deleteAllById(bookIds);
+        userRepo.deleteAllById(userIds);
+    }
+
+    @Test
+    void testFindById_SecondLookupSkipsTheDatabase() {
+        Long bookId = persistBook(5).getBookId();
+        Long userId = persistUser("cached@example.com").getUserId();
+
+        bookRepo.findById(bookId);
+        userRepo.findById(userId);
+        statistics.clear();
+
+        assertTrue(bookRepo.findById(bookId).isPresent());
+        assertTrue(userRepo.findById(userId).isPresent());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testFindByEmail_ServedFromQueryCache() {
+        persistUser("query@example.com");
+
+        userRepo.findByEmail("query@example.com");
+        statistics.clear();
+
+        assertTrue(userRepo.findByEmail("query@example.com").isPresent());
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testDecrementStock_EvictsCachedBook() {
+        Long bookId = persistBook(5).getBookId();
+        bookRepo.findById(bookId);
+        assertTrue(entityManagerFactory.getCache().contains(Book.class, bookId));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> bookRepo.decrementStock(Map.of(bookId, 2)));
+
+        assertFalse(entityManagerFactory.getCache().contains(Book.class, bookId));
+        assertEquals(3, bookRepo.findById(bookId).get().getBookQuantity());
+    }
+
+    private Book persistBook(int quantity) {
+        Book book = new Book();
+        book.setBookName("Cached Book");
+        book.setBookPrice(10.0);
+        book.setBookQuantity(quantity);
+        Book saved = bookRepo.save(book);
+        bookIds.add(saved.getBookId());
+        return saved;
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole("USER");
+        User saved = userRepo.save(user);
+        userIds.add(saved.getUserId());
+        return saved;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.retry;
+
+import com.example.cache.BookCache;
+import com.example.dto.DtoToBookEntity;
+import com.example.entity.Book;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.service.BookService;
+import com.example.serviceImpl.BookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConflictRetryAspectTest {
+
+    private BookRepo bookRepo;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepo = Mockito.mock(BookRepo.class);
+        BookServiceImpl target = new BookServiceImpl(bookRepo, Mockito.mock(BookCache.class), Mockito.mock(BookSearchIndex.class), Mockito.mock(BookSuggestIndex.class));
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new ConflictRetryAspect(3, 1, 2));
+        bookService = factory.getProxy();
+
+        Book book = new Book();
+        book.setBookId(1L);
+        book.setBookName("Java");
+        when(bookRepo.findById(1L)).thenAnswer(invocation -> Optional.of(book));
+    }
+
+    @Test
+    void testConflict_RetriedWithFreshRead() {
+        when(bookRepo.saveAndFlush(any(Book.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals("Book Updated Successfully", bookService.updateBook(1L, update()));
+        verify(bookRepo, times(2)).findById(1L);
+        verify(bookRepo, times(2)).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    void testConflictOnEveryAttempt_GivesUpAfterMaxAttempts() {
+        when(bookRepo.saveAndFlush(any(Book.class))).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        CustomiseException exception = assertThrows(CustomiseException.class, () -> bookService.updateBook(1L, update()));
+        assertEquals("Updated by Another Request, Please Try Again", exception.getMessage());
+        verify(bookRepo, times(3)).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    void testOtherFailures_NotRetried() {
+        when(bookRepo.saveAndFlush(any(Book.class))).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(IllegalStateException.class, () -> bookService.updateBook(1L, update()));
+        verify(bookRepo, times(1)).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    void testMethodsWithoutAnnotation_NotRetried() {
+        doThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L)).when(bookRepo).deleteById(1L);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookService.deleteBook(1L));
+        verify(bookRepo, times(1)).deleteById(1L);
+    }
+
+    private static DtoToBookEntity update() {
+        DtoToBookEntity dto = new DtoToBookEntity();
+        dto.setBookPrice(12.0);
+        dto.setBookQuantity(4);
+        return dto;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.search;
+
+import com.example.dto.BookEntityToDto;
+import com.example.repo.BookRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private BookRepo bookRepo;
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookRepo = Mockito.mock(BookRepo.class);
+        index = new BookSearchIndex(bookRepo);
+        index.index(book(1L, "Effective Java", "Joshua Bloch", "Best practices for the Java platform"));
+        index.index(book(2L, "Java Concurrency in Practice", "Brian Goetz", "Threads, locks and the memory model"));
+        index.index(book(3L, "Clean Code", "Robert Martin", "Writing readable programs, examples in Java"));
+    }
+
+    @Test
+    void testSearch_TitleMatchRanksAboveDescriptionMatch() {
+        BookSearchIndex.SearchHits hits = index.search("java", 0, 10);
+
+        assertEquals(3, hits.total());
+        assertEquals(3L, hits.bookIds().get(2));
+    }
+
+    @Test
+    void testSearch_MultipleTermsFavourBooksMatchingMore() {
+        BookSearchIndex.SearchHits hits = index.search("java concurrency", 0, 10);
+
+        assertEquals(2L, hits.bookIds().get(0));
+    }
+
+    @Test
+    void testSearch_IsCaseInsensitiveAndIgnoresStopWords() {
+        assertEquals(List.of(3L), index.search("THE Clean", 0, 10).bookIds());
+        assertEquals(0, index.search("the and of", 0, 10).total());
+    }
+
+    @Test
+    void testSearch_Pagination() {
+        BookSearchIndex.SearchHits all = index.search("java", 0, 10);
+        BookSearchIndex.SearchHits second = index.search("java", 1, 1);
+
+        assertEquals(3, second.total());
+        assertEquals(List.of(all.bookIds().get(1)), second.bookIds());
+        assertTrue(index.search("java", 5, 1).bookIds().isEmpty());
+    }
+
+    @Test
+    void testIndex_UpdateReplacesOldTerms() {
+        index.index(book(3L, "Refactoring", "Martin Fowler", "Improving the design of existing code"));
+
+        assertTrue(index.search("clean", 0, 10).bookIds().isEmpty());
+        assertEquals(List.of(3L), index.search("refactoring", 0, 10).bookIds());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+
+        assertEquals(2, index.search("java", 0, 10).total());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testRebuild_LoadsCatalogFromRepository() {
+        when(bookRepo.streamAll()).thenReturn(Stream.of(book(9L, "Domain-Driven Design", "Eric Evans", "Tackling complexity")));
+
+        index.rebuild();
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(9L), index.search("domain design", 0, 10).bookIds());
+    }
+
+    private BookEntityToDto book(Long id, String name, String author, String description) {
+        return new BookEntityToDto(id, name, author, description, null, 100.0, 5);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.search;
+
+import com.example.dto.BookEntityToDto;
+import com.example.repo.BookRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSuggestIndexTest {
+
+    private BookSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSuggestIndex(Mockito.mock(BookRepo.class));
+        index.index(book(1L, "Harry Potter and the Philosopher's Stone", "J. K. Rowling"));
+        index.index(book(2L, "Harry Potter and the Chamber of Secrets", "J. K. Rowling"));
+        index.index(book(3L, "Harriet the Spy", "Louise Fitzhugh"));
+    }
+
+    @Test
+    void testSuggest_MatchesTitlePrefix() {
+        List<Long> ids = ids(index.suggest("harr", 10));
+
+        assertEquals(3, ids.size());
+        assertTrue(ids.containsAll(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void testSuggest_MatchesWordInsideTitleAndAuthor() {
+        assertEquals(List.of(1L), ids(index.suggest("Philosopher", 10)));
+
+        List<BookSuggestIndex.Suggestion> authors = index.suggest("louise", 10);
+        assertEquals(1, authors.size());
+        assertEquals(BookSuggestIndex.TYPE_AUTHOR, authors.get(0).type());
+    }
+
+    @Test
+    void testSuggest_PopularBooksComeFirstAndLimitApplies() {
+        index.recordPopularity(2L, 10);
+        index.recordPopularity(3L, 3);
+
+        List<Long> ids = ids(index.suggest("har", 2));
+
+        assertEquals(List.of(2L, 3L), ids);
+    }
+
+    @Test
+    void testSuggest_ShortPrefixRanksEveryMatch() {
+        for (long id = 100; id < 6_100; id++) {
+            index.index(book(id, "Aardvark Notes " + id, "Anon"));
+        }
+        index.index(book(99L, "Azure Skies", "Zelda Moss"));
+        index.recordPopularity(99L, 1);
+
+        // "Azure Skies" sorts after six thousand other keys starting with "a"
+        assertEquals(List.of(99L), ids(index.suggest("a", 1)));
+        assertEquals(List.of(99L), ids(index.suggest("az", 1)));
+
+        index.remove(99L);
+        assertNotEquals(List.of(99L), ids(index.suggest("a", 1)));
+    }
+
+    @Test
+    void testSuggest_EmptyPrefixReturnsNothing() {
+        assertTrue(index.suggest("  ", 10).isEmpty());
+        assertTrue(index.suggest("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void testIndex_UpdateAndRemove() {
+        index.index(book(3L, "The Secret Garden", "Frances Hodgson Burnett"));
+        assertFalse(ids(index.suggest("harriet", 10)).contains(3L));
+        assertEquals(List.of(3L), ids(index.suggest("secret g", 10)));
+
+        index.remove(3L);
+        assertTrue(index.suggest("secret g", 10).isEmpty());
+    }
+
+    @Test
+    void testFootprint_CountsBooksAndKeys() {
+        Map<String, Long> footprint = index.footprint();
+
+        assertEquals(3L, footprint.get("books"));
+        assertTrue(footprint.get("keys") > 3L);
+        assertTrue(footprint.get("estimatedTotalBytes") > footprint.get("keyBytes"));
+    }
+
+    private List<Long> ids(List<BookSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestIndex.Suggestion::bookId).collect(Collectors.toList());
+    }
+
+    private BookEntityToDto book(Long id, String name, String author) {
+        return new BookEntityToDto(id, name, author, null, null, 100.0, 5);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.dto.BookImportResultDto;
+import com.example.entity.Book;
+import com.example.repo.BookRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.BookImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs CSV and NDJSON imports against H2: new rows are added, rows matching on name and author are updated,
+ * bad rows are reported by number and do not stop the rest of the file.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({BookImportServiceImpl.class, BookCache.class, BookSearchIndex.class, BookSuggestIndex.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+// Every chunk commits on its own, so the test must not wrap the import in a transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceImplTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @AfterEach
+    void tearDown() {
+        bookRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void importCsv_addsAndUpdatesBooks() throws Exception {
+        Book existing = new Book();
+        existing.setBookName("Dune");
+        existing.setBookAuthor("Frank Herbert");
+        existing.setBookPrice(5.0);
+        existing.setBookQuantity(1);
+        bookRepo.save(existing);
+
+        BookImportResultDto result = bookImportService.importCsv(stream(
+                "bookName,bookAuthor,bookDescription,bookPrice,bookQuantity\n" +
+                "Dune,Frank Herbert,\"Spice, sand\nand worms\",12.5,40\n" +
+                "\"The \"\"Hobbit\"\"\",J. R. R. Tolkien,,9.99,7\n"));
+
+        assertEquals(2, result.getTotalRows());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(0, result.getFailed());
+
+        Book dune = bookRepo.findById(existing.getBookId()).get();
+        assertEquals(12.5, dune.getBookPrice());
+        assertEquals(40, dune.getBookQuantity());
+        assertEquals("Spice, sand\nand worms", dune.getBookDescription());
+        assertEquals(2, bookRepo.count());
+        assertEquals(1, bookRepo.findByNormalisedBookNameIn(List.of("the \"hobbit\"")).size());
+        assertEquals(1, bookSearchIndex.search("hobbit", 0, 10).total());
+    }
+
+    @Test
+    void importCsv_matchesNameIgnoringCaseAndSpaces() throws Exception {
+        Book existing = new Book();
+        existing.setBookName("The Hobbit");
+        existing.setBookAuthor("J. R. R. Tolkien");
+        existing.setBookPrice(5.0);
+        existing.setBookQuantity(1);
+        bookRepo.save(existing);
+
+        BookImportResultDto result = bookImportService.importCsv(stream(
+                "bookName,bookAuthor,bookPrice,bookQuantity\n" +
+                "\"  the hobbit \",j. r. r. tolkien,9.99,7\n"));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, bookRepo.count());
+        assertEquals(7, bookRepo.findById(existing.getBookId()).get().getBookQuantity());
+    }
+
+    @Test
+    void importNdjson_reportsBadRowsAndKeepsGoodOnes() throws Exception {
+        BookImportResultDto result = bookImportService.importNdjson(stream(
+                "{\"bookName\":\"Emma\",\"bookAuthor\":\"Jane Austen\",\"bookPrice\":4.5,\"bookQuantity\":3}\n" +
+                "\n" +
+                "{\"bookName\":\"\",\"bookPrice\":4.5,\"bookQuantity\":3}\n" +
+                "{\"bookName\":\"Ulysses\",\"bookPrice\":-1,\"bookQuantity\":3}\n" +
+                "{not json}\n" +
+                "{\"bookName\":\"Persuasion\",\"bookAuthor\":\"Jane Austen\",\"bookPrice\":6,\"bookQuantity\":2}\n"));
+
+        assertEquals(5, result.getTotalRows());
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(error -> error.getRow()).toList());
+        assertEquals("Book Name is Required", result.getErrors().get(0).getMessage());
+        assertEquals("Enter Valid Price", result.getErrors().get(1).getMessage());
+        assertFalse(result.isErrorsTruncated());
+        assertEquals(2, bookRepo.count());
+    }
+
+    @Test
+    void importCsv_spansSeveralChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("bookName,bookAuthor,bookPrice,bookQuantity\n");
+        int rows = 2_500;
+        for (int i = 0; i < rows; i++) {
+            csv.append("Book ").append(i).append(",Author ").append(i % 10).append(',').append(i).append(",1\n");
+        }
+        // The same file a second time only updates
+        bookImportService.importCsv(stream(csv.toString()));
+        BookImportResultDto result = bookImportService.importCsv(stream(csv.toString()));
+
+        assertEquals(rows, result.getTotalRows());
+        assertEquals(0, result.getCreated());
+        assertEquals(rows, result.getUpdated());
+        assertEquals(rows, bookRepo.count());
+    }
+
+    @Test
+    void importCsv_missingRequiredColumn() throws Exception {
+        BookImportResultDto result = bookImportService.importCsv(stream("bookName,bookAuthor\nDune,Frank Herbert\n"));
+
+        assertEquals(0, result.getTotalRows());
+        assertEquals(1, result.getFailed());
+        assertEquals("Missing Column in Header : bookPrice", result.getErrors().get(0).getMessage());
+        assertEquals(0, bookRepo.count());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,20 +1,30 @@
 package com.example.service;
 
+import com.example.cache.BookCache;
 import com.example.dto.BookEntityToDto;
+import com.example.dto.BookPageDto;
+import com.example.dto.BookSearchResultDto;
 import com.example.dto.DtoToBookEntity;
 import com.example.entity.Book;
 import com.example.exception.CustomiseException;
 import com.example.repo.BookRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
 import com.example.serviceImpl.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,12 +34,18 @@ class BookServiceImplTest {
     @Mock
     private BookRepo bookRepo;
 
-    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    private BookSuggestIndex bookSuggestIndex;
+
     private BookServiceImpl bookService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        bookSearchIndex = new BookSearchIndex(bookRepo);
+        bookSuggestIndex = new BookSuggestIndex(bookRepo);
+        bookService = new BookServiceImpl(bookRepo, new BookCache(bookRepo, 100, Duration.ofMinutes(5)), bookSearchIndex, bookSuggestIndex);
     }
 
     // ---------- addBook ----------
@@ -69,6 +85,87 @@ class BookServiceImplTest {
         verify(bookRepo, times(1)).findAll();
     }
 
+    // ---------- booksPage ----------
+    @Test
+    void testBooksPage_FullPage_ReturnsNextCursor() {
+        List<BookEntityToDto> rows = new ArrayList<>(List.of(createSampleDtoWithId(1L), createSampleDtoWithId(2L), createSampleDtoWithId(3L)));
+        when(bookRepo.findPageAfter(0L, Limit.of(3))).thenReturn(rows);
+
+        BookPageDto page = bookService.booksPage(null, 2);
+
+        assertEquals(2, page.getBooks().size());
+        assertEquals(2L, page.getNextCursor());
+    }
+
+    @Test
+    void testBooksPage_LastPage_HasNoCursor() {
+        when(bookRepo.findPageAfter(2L, Limit.of(3))).thenReturn(List.of(createSampleDtoWithId(3L)));
+
+        BookPageDto page = bookService.booksPage(2L, 2);
+
+        assertEquals(1, page.getBooks().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testBooksPage_SizeIsCapped() {
+        when(bookRepo.findPageAfter(0L, Limit.of(501))).thenReturn(List.of());
+
+        bookService.booksPage(null, 10_000);
+
+        verify(bookRepo, times(1)).findPageAfter(0L, Limit.of(501));
+    }
+
+    // ---------- streamAllBooks ----------
+    @Test
+    void testStreamAllBooks_PassesEveryRow() {
+        when(bookRepo.streamAll()).thenReturn(Stream.of(createSampleDtoWithId(1L), createSampleDtoWithId(2L)));
+        List<Long> seen = new ArrayList<>();
+
+        bookService.streamAllBooks(book -> seen.add(book.getBookId()));
+
+        assertEquals(List.of(1L, 2L), seen);
+    }
+
+    // ---------- searchBooks ----------
+    @Test
+    void testSearchBooks_ReturnsIndexedBooksInRankOrder() {
+        Book java = createSampleBook(1L);
+        Book spring = createSampleBook(2L);
+        spring.setBookName("Spring in Action");
+        spring.setBookDescription("Java web applications with Spring");
+        bookSearchIndex.index(new BookEntityToDto(1L, java.getBookName(), java.getBookAuthor(), java.getBookDescription(), null, 500.0, 10));
+        bookSearchIndex.index(new BookEntityToDto(2L, spring.getBookName(), spring.getBookAuthor(), spring.getBookDescription(), null, 500.0, 10));
+        when(bookRepo.findAllById(any())).thenReturn(List.of(java, spring));
+
+        BookSearchResultDto result = bookService.searchBooks("spring", 0, 10);
+
+        assertEquals(1, result.getTotalHits());
+        assertEquals(2L, result.getBooks().get(0).getBookId());
+    }
+
+    @Test
+    void testDeleteBook_RemovesFromSearchIndex() {
+        bookSearchIndex.index(new BookEntityToDto(1L, "Java Basics", "John Doe", "Intro", null, 500.0, 10));
+
+        bookService.deleteBook(1L);
+
+        assertEquals(0, bookService.searchBooks("java", 0, 10).getTotalHits());
+    }
+
+    // ---------- suggestBooks ----------
+    @Test
+    void testSuggestBooks_ViewedBookRanksFirst() {
+        when(bookRepo.findById(2L)).thenReturn(Optional.of(createSampleBook(2L)));
+        bookSuggestIndex.index(new BookEntityToDto(1L, "Java Basics", "John Doe", null, null, 500.0, 10));
+        bookSuggestIndex.index(new BookEntityToDto(2L, "Java Streams", "Jane Roe", null, null, 500.0, 10));
+
+        bookService.getBook(2L);
+
+        assertEquals(2L, bookService.suggestBooks("jav", 10).get(0).getBookId());
+        assertEquals(1, bookService.suggestBooks("jav", 1).size());
+    }
+
     // ---------- getBook ----------
     @Test
     void testGetBook_ValidId() {
@@ -81,6 +178,29 @@ class BookServiceImplTest {
         verify(bookRepo, times(1)).findById(1L);
     }
 
+    @Test
+    void testGetBook_SecondReadIsServedFromCache() {
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(createSampleBook(1L)));
+
+        bookService.getBook(1L);
+        bookService.getBook(1L);
+
+        verify(bookRepo, times(1)).findById(1L);
+    }
+
+    @Test
+    void testUpdateBook_EvictsCachedBook() {
+        Book book = createSampleBook(1L);
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(book));
+        bookService.getBook(1L);
+
+        DtoToBookEntity dto = createSampleDto();
+        dto.setBookPrice(900.0);
+        bookService.updateBook(1L, dto);
+
+        assertEquals(900.0, bookService.getBook(1L).getBookPrice());
+    }
+
     @Test
     void testGetBook_InvalidId_ThrowsException() {
         when(bookRepo.findById(99L)).thenReturn(Optional.empty());
@@ -95,12 +215,61 @@ class BookServiceImplTest {
         Book existingBook = createSampleBook(1L);
         DtoToBookEntity dto = createSampleDto();
         when(bookRepo.findById(1L)).thenReturn(Optional.of(existingBook));
-        when(bookRepo.save(any(Book.class))).thenReturn(existingBook);
+        when(bookRepo.saveAndFlush(any(Book.class))).thenReturn(existingBook);
 
         String result = bookService.updateBook(1L, dto);
 
         assertEquals("Book Updated Successfully", result);
-        verify(bookRepo, times(1)).save(existingBook);
+        verify(bookRepo, times(1)).saveAndFlush(existingBook);
+        verify(bookRepo, never()).splitStock(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testUpdateBook_IndexesOnlyAfterCommit() {
+        BookSearchIndex searchIndex = spy(new BookSearchIndex(bookRepo));
+        BookSuggestIndex suggestIndex = spy(new BookSuggestIndex(bookRepo));
+        BookServiceImpl service = new BookServiceImpl(bookRepo, new BookCache(bookRepo, 100, Duration.ofMinutes(5)), searchIndex, suggestIndex);
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(createSampleBook(1L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("Book Updated Successfully", service.updateBook(1L, createSampleDto()));
+            verify(searchIndex, never()).index(any());
+            verify(suggestIndex, never()).index(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(searchIndex, times(1)).index(any());
+            verify(suggestIndex, times(1)).index(any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testUpdateBook_StripedBook_SpreadsNewQuantityOverStripes() {
+        Book existingBook = createSampleBook(1L);
+        existingBook.setStockStripes(8);
+        DtoToBookEntity dto = createSampleDto();
+        when(bookRepo.findById(1L)).thenReturn(Optional.of(existingBook));
+
+        assertEquals("Book Updated Successfully", bookService.updateBook(1L, dto));
+        verify(bookRepo, times(1)).splitStock(1L, 8, dto.getBookQuantity());
+    }
+
+    @Test
+    void testUpdateStockStripes_InvalidCount_ThrowsException() {
+        assertThrows(CustomiseException.class, () -> bookService.updateStockStripes(1L, 65));
+        assertThrows(CustomiseException.class, () -> bookService.updateStockStripes(1L, -1));
+        verify(bookRepo, never()).splitStock(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testUpdateStockStripes_CarriesStockOver() {
+        when(bookRepo.lockStock(1L)).thenReturn(Optional.of(30));
+        when(bookRepo.lockStripedStock(1L)).thenReturn(Optional.empty());
+
+        assertEquals("Stock of Book 1 Split Over 4 Stripes", bookService.updateStockStripes(1L, 4));
+        verify(bookRepo, times(1)).splitStock(1L, 4, 30);
     }
 
     @Test
@@ -111,7 +280,7 @@ class BookServiceImplTest {
         String result = bookService.updateBook(99L, dto);
 
         assertEquals("Invalid Book Id!!", result);
-        verify(bookRepo, never()).save(any(Book.class));
+        verify(bookRepo, never()).saveAndFlush(any(Book.class));
     }
 
     // ---------- Helper methods ----------
@@ -126,6 +295,10 @@ class BookServiceImplTest {
         return dto;
     }
 
+    private BookEntityToDto createSampleDtoWithId(Long id) {
+        return new BookEntityToDto(id, "Java Basics", "John Doe", "Intro to Java", "logo.png", 500.0, 10);
+    }
+
     private Book createSampleBook(Long id) {
         Book book = new Book();
         book.setBookId(id);
@@ -1,5 +1,8 @@
 package com.example.service;
 
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.CartEntityToDto;
 import com.example.dto.DtoToCartEntity;
 import com.example.entity.Book;
 import com.example.entity.Cart;
@@ -8,19 +11,25 @@ import com.example.exception.CustomiseException;
 import com.example.repo.BookRepo;
 import com.example.repo.CartRepo;
 import com.example.repo.UserRepo;
+import com.example.search.BookSuggestIndex;
 import com.example.serviceImpl.CartServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class CartServiceImplTest {
@@ -34,6 +43,15 @@ class CartServiceImplTest {
     @Mock
     private CartRepo cartRepo;
 
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private CartServiceImpl cartService;
 
@@ -44,6 +62,8 @@ class CartServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cartService, "bookCache", new BookCache(bookRepo, 100, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(cartService, "bookSuggestIndex", new BookSuggestIndex(bookRepo));
 
         user = new User();
         user.setUserId(1L);
@@ -69,11 +89,57 @@ class CartServiceImplTest {
 
         when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
         when(userRepo.findById(1L)).thenReturn(Optional.of(user));
-        when(cartRepo.save(any(Cart.class))).thenReturn(cart);
+        when(cartRepo.saveAndFlush(any(Cart.class))).thenReturn(cart);
+
+        String result = cartService.addToCart(1L, 10L, dto);
+        assertEquals("Book Added to Cart Successfully!!", result);
+        verify(cartRepo, times(1)).saveAndFlush(any(Cart.class));
+    }
+
+    @Test
+    void addToCart_existingLine_incrementsInsteadOfInserting() {
+        DtoToCartEntity dto = new DtoToCartEntity();
+        dto.setCartQuantity(2);
+
+        when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
+        when(cartRepo.incrementQuantity(1L, 10L, 2, 100.00, 5)).thenReturn(1);
+        when(cartRepo.findQuantity(1L, 10L)).thenReturn(Optional.of(3));
+
+        String result = cartService.addToCart(1L, 10L, dto);
+        assertEquals("Book Added to Cart Successfully!!", result);
+        verify(cartRepo, never()).saveAndFlush(any(Cart.class));
+        verify(userRepo, never()).findById(any());
+        // The hold follows the quantity the line reached
+        verify(reservationService).hold(1L, 10L, 3);
+    }
+
+    @Test
+    void addToCart_existingLine_overStock() {
+        DtoToCartEntity dto = new DtoToCartEntity();
+        dto.setCartQuantity(2);
+
+        when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
+        when(cartRepo.incrementQuantity(1L, 10L, 2, 100.00, 5)).thenReturn(0);
+        when(cartRepo.existsByUserUserIdAndBookBookId(1L, 10L)).thenReturn(true);
+
+        assertThrows(CustomiseException.class, () -> cartService.addToCart(1L, 10L, dto));
+        verify(cartRepo, never()).saveAndFlush(any(Cart.class));
+        verify(reservationService, never()).hold(any(), any(), anyInt());
+    }
+
+    @Test
+    void addToCart_lostInsertRace_incrementsWinnerLine() {
+        DtoToCartEntity dto = new DtoToCartEntity();
+        dto.setCartQuantity(1);
+
+        when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        when(cartRepo.incrementQuantity(1L, 10L, 1, 100.00, 5)).thenReturn(0, 1);
+        when(cartRepo.saveAndFlush(any(Cart.class))).thenThrow(new DataIntegrityViolationException("uk_cart_user_book"));
 
         String result = cartService.addToCart(1L, 10L, dto);
         assertEquals("Book Added to Cart Successfully!!", result);
-        verify(cartRepo, times(1)).save(any(Cart.class));
+        verify(cartRepo, times(2)).incrementQuantity(1L, 10L, 1, 100.00, 5);
     }
 
     @Test
@@ -90,17 +156,26 @@ class CartServiceImplTest {
 
         String result = cartService.addTooCart(1L, 10L);
         assertEquals("Book Added to Cart Successfully!!", result);
-        verify(cartRepo).save(any(Cart.class));
+        verify(cartRepo).saveAndFlush(any(Cart.class));
     }
 
     @Test
     void removeFromCart_success() {
         when(userRepo.findById(1L)).thenReturn(Optional.of(user));
-        when(cartRepo.findById(100L)).thenReturn(Optional.of(cart));
+        when(cartRepo.deleteByCartIdAndUserId(100L, 1L)).thenReturn(1);
 
         String result = cartService.removeFromCart(1L, 100L);
         assertEquals("Remove From Cart Successfully", result);
-        verify(cartRepo).deleteById(100L);
+        verify(cartRepo, never()).save(any(Cart.class));
+    }
+
+    @Test
+    void removeFromCart_otherUsersCart() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        when(cartRepo.deleteByCartIdAndUserId(100L, 1L)).thenReturn(0);
+
+        String result = cartService.removeFromCart(1L, 100L);
+        assertEquals("Enter a Valid Details : Token No | CartId", result);
     }
 
     @Test
@@ -112,11 +187,19 @@ class CartServiceImplTest {
 
     @Test
     void removeByUserID_success() {
-        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
-        when(cartRepo.findByUser(user)).thenReturn(List.of(cart));
+        when(cartRepo.deleteAllByUserId(1L)).thenReturn(3);
 
         String result = cartService.removeByUserID(1L);
         assertEquals("All Cart Deleted for User ID: 1", result);
+        verify(cartRepo, never()).findByUser(any());
+    }
+
+    @Test
+    void removeByUserID_emptyCart() {
+        when(cartRepo.deleteAllByUserId(1L)).thenReturn(0);
+
+        String result = cartService.removeByUserID(1L);
+        assertEquals("Enter a Valid User ID : 1", result);
     }
 
     @Test
@@ -126,29 +209,65 @@ class CartServiceImplTest {
         book.setBookQuantity(5);
         cart.setBook(book);
 
-        assertThrows(CustomiseException.class, () -> cartService.updateQuantityInCart(1L, 100L, 1));
+        assertThrows(CustomiseException.class, () -> cartService.updateQuantityInCart(1L, 100L, 5));
     }
 
     @Test
-    void getAllCartItemsByUserID_success() {
+    void updateQuantityInCart_success_doesNotTouchStock() {
         when(userRepo.findById(1L)).thenReturn(Optional.of(user));
-        when(cartRepo.findByUser(user)).thenReturn(List.of(cart));
-        when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
+        when(cartRepo.findById(100L)).thenReturn(Optional.of(cart));
 
-        assertFalse(cartService.getAllCartItemsByUserID(1L).isEmpty());
+        String result = cartService.updateQuantityInCart(1L, 100L, 2);
+
+        assertEquals("Cart Updated Successfully with Id : 100", result);
+        assertEquals(3, cart.getCartQuantity());
+        assertEquals(5, book.getBookQuantity());
+        verify(bookRepo, never()).save(any(Book.class));
+    }
+
+    @Test
+    void updateQuantityInCartAdd_failedSave_rollsBackTheHold() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user));
+        when(cartRepo.findById(100L)).thenReturn(Optional.of(cart));
+        when(cartRepo.save(any(Cart.class))).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> cartService.updateQuantityInCartAdd(1L, 100L));
+
+        // The hold was raised in the transaction that failed, so it goes with it
+        verify(reservationService, times(1)).hold(1L, 10L, 2);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void getAllCartItemsByUserID_success() {
+        when(cartRepo.findAllByUserIdWithBook(1L)).thenReturn(List.of(cart));
+
+        List<CartEntityToDto> result = cartService.getAllCartItemsByUserID(1L);
+
+        assertFalse(result.isEmpty());
+        assertEquals("Test Book", result.get(0).getBook().getTitle());
+        verify(bookRepo, never()).findById(anyLong());
+    }
+
+    @Test
+    void getAllCartItemsByUserID_empty_throwsException() {
+        when(cartRepo.findAllByUserIdWithBook(1L)).thenReturn(List.of());
+
+        assertThrows(CustomiseException.class, () -> cartService.getAllCartItemsByUserID(1L));
     }
 
     @Test
     void getAllCarts_success() {
-        when(cartRepo.findAll()).thenReturn(List.of(cart));
-        when(bookRepo.findById(10L)).thenReturn(Optional.of(book));
+        when(cartRepo.findAllWithUserAndBook()).thenReturn(List.of(cart));
 
         assertFalse(cartService.getAllCarts().isEmpty());
+        verify(bookRepo, never()).findById(anyLong());
     }
 
     @Test
     void getAllCarts_empty_throwsException() {
-        when(cartRepo.findAll()).thenReturn(List.of());
+        when(cartRepo.findAllWithUserAndBook()).thenReturn(List.of());
         assertThrows(CustomiseException.class, () -> cartService.getAllCarts());
     }
 }
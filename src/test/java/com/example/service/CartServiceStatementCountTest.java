@@ -0,0 +1,121 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.repo.CartRepo;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.CartServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that reading and clearing carts costs the same number of SQL statements however many lines the carts have.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({CartServiceImpl.class, BookCache.class, CartStore.class, ReservationServiceImpl.class, BookSuggestIndex.class})
+class CartServiceStatementCountTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getAllCartItemsByUserID_statementCountDoesNotGrowWithCart() {
+        Long smallCartUser = seedCart(1);
+        Long largeCartUser = seedCart(25);
+
+        assertEquals(1, statementsFor(() -> cartService.getAllCartItemsByUserID(smallCartUser)));
+        assertEquals(1, statementsFor(() -> cartService.getAllCartItemsByUserID(largeCartUser)));
+    }
+
+    @Test
+    void getAllCarts_statementCountDoesNotGrowWithCartRows() {
+        seedCart(2);
+        long before = statementsFor(() -> cartService.getAllCarts());
+
+        seedCart(30);
+        long after = statementsFor(() -> cartService.getAllCarts());
+
+        assertEquals(1, before);
+        assertEquals(before, after);
+    }
+
+    @Test
+    void removeByUserID_statementCountDoesNotGrowWithCart() {
+        Long userId = seedCart(50);
+
+        // One DELETE for the stock holds, one for the cart lines
+        assertEquals(2, statementsFor(() -> cartService.removeByUserID(userId)));
+        assertEquals(0, cartRepo.findAllByUserIdWithBook(userId).size());
+    }
+
+    @Test
+    void removeFromCart_onlyDeletesOwnersLine() {
+        Long ownerId = seedCart(2);
+        Long otherId = seedCart(1);
+        Long cartId = cartRepo.findAllByUserIdWithBook(ownerId).get(0).getCartId();
+
+        assertEquals("Enter a Valid Details : Token No | CartId", cartService.removeFromCart(otherId, cartId));
+        assertEquals("Remove From Cart Successfully", cartService.removeFromCart(ownerId, cartId));
+        assertEquals(1, cartRepo.findAllByUserIdWithBook(ownerId).size());
+    }
+
+    private long statementsFor(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long seedCart(int lines) {
+        User user = new User();
+        user.setEmail("user" + System.nanoTime() + "@example.com");
+        user.setRole("USER");
+        entityManager.persist(user);
+        for (int i = 0; i < lines; i++) {
+            Book book = new Book();
+            book.setBookName("Book " + i);
+            book.setBookAuthor("Author " + i);
+            book.setBookPrice(10.0 + i);
+            book.setBookQuantity(100);
+            entityManager.persist(book);
+
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(book.getBookPrice());
+            entityManager.persist(cart);
+        }
+        return user.getUserId();
+    }
+}
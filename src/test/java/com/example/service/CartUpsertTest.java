@@ -0,0 +1,216 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToCartEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.repo.CartRepo;
+import com.example.repo.StockHoldRepo;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.CartServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Adding the same book again, from one request after another or from many at once, must leave a single cart line
+ * whose stock hold matches its quantity.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart_upsert;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartServiceImpl.class, BookCache.class, CartStore.class, ReservationServiceImpl.class, BookSuggestIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartUpsertTest {
+    private static final int STOCK = 100;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private StockHoldRepo stockHoldRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void repeatedAdds_mergeIntoOneLine() {
+        Long[] ids = seed();
+        Long userId = ids[0];
+        Long bookId = ids[1];
+
+        for (int i = 0; i < 5; i++) {
+            cartService.addTooCart(userId, bookId);
+        }
+
+        List<Cart> lines = cartRepo.findAllByUserIdWithBook(userId);
+        assertEquals(1, lines.size());
+        assertEquals(5, lines.get(0).getCartQuantity());
+        assertEquals(5 * 20.0, lines.get(0).getTotalPrice());
+    }
+
+    @Test
+    void addBeyondStock_isRejectedAndLineUnchanged() {
+        Long[] ids = seed();
+        for (int i = 0; i < STOCK; i++) {
+            cartService.addTooCart(ids[0], ids[1]);
+        }
+
+        assertThrows(CustomiseException.class, () -> cartService.addTooCart(ids[0], ids[1]));
+        assertEquals(STOCK, cartRepo.findAllByUserIdWithBook(ids[0]).get(0).getCartQuantity());
+    }
+
+    @Test
+    void concurrentFirstAdds_leaveOneLine() throws Exception {
+        Long[] ids = seed();
+        int clicks = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clicks; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                cartService.addTooCart(ids[0], ids[1]);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<Cart> lines = cartRepo.findAllByUserIdWithBook(ids[0]);
+        assertEquals(1, lines.size());
+        assertEquals(clicks, lines.get(0).getCartQuantity());
+    }
+
+    @Test
+    void concurrentAdds_holdWhatTheLineHolds() throws Exception {
+        Long[] ids = seed();
+        cartService.addTooCart(ids[0], ids[1]);
+        int clicks = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(clicks);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clicks; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                cartService.addTooCart(ids[0], ids[1]);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(clicks + 1, cartRepo.findQuantity(ids[0], ids[1]).orElseThrow());
+        assertEquals(clicks + 1, stockHoldRepo.findByUserIdAndBookId(ids[0], ids[1]).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void rejectedHold_undoesTheAdd() {
+        Long[] ids = seed();
+        Long otherUser = newUser();
+        DtoToCartEntity dto = new DtoToCartEntity();
+        dto.setCartQuantity(STOCK - 1);
+        cartService.addToCart(otherUser, ids[1], dto);
+        cartService.addTooCart(ids[0], ids[1]);
+
+        // The last free unit is taken, a second one cannot be held
+        assertThrows(CustomiseException.class, () -> cartService.addTooCart(ids[0], ids[1]));
+
+        assertEquals(1, cartRepo.findQuantity(ids[0], ids[1]).orElseThrow());
+        assertEquals(1, stockHoldRepo.findByUserIdAndBookId(ids[0], ids[1]).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void failedInsert_leavesNoHold() {
+        Long[] ids = seed();
+        long unknownUser = ids[0] + 1_000_000;
+
+        assertThrows(CustomiseException.class, () -> cartService.addTooCart(unknownUser, ids[1]));
+
+        assertTrue(stockHoldRepo.findByUserIdAndBookId(unknownUser, ids[1]).isEmpty());
+    }
+
+    @Test
+    void uniqueConstraint_rejectsDuplicateInsert() {
+        Long[] ids = seed();
+        cartService.addTooCart(ids[0], ids[1]);
+
+        assertThrows(DataIntegrityViolationException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Cart duplicate = new Cart();
+            duplicate.setUser(entityManager.getReference(User.class, ids[0]));
+            duplicate.setBook(entityManager.getReference(Book.class, ids[1]));
+            duplicate.setCartQuantity(1);
+            duplicate.setTotalPrice(20.0);
+            cartRepo.saveAndFlush(duplicate);
+        }));
+    }
+
+    private Long newUser() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("other" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+            return user.getUserId();
+        });
+    }
+
+    private Long[] seed() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("shopper" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+
+            Book book = new Book();
+            book.setBookName("Upsert Book");
+            book.setBookPrice(20.0);
+            book.setBookQuantity(STOCK);
+            entityManager.persist(book);
+            return new Long[]{user.getUserId(), book.getBookId()};
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToBookEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.retry.ConflictRetryAspect;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.BookServiceImpl;
+import com.example.serviceImpl.CartServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parallel writers on the same Book or Cart row: every change lands, the losers of a version check are retried
+ * instead of overwriting the winner.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:optimistic_locking;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        // Enough attempts that no writer gives up, the test is about lost updates
+        "bookstore.retry.max-attempts=100",
+        // The second-level cache regions are JVM-wide, a separate database needs its own or it sees other tests' books
+        "spring.jpa.properties.hibernate.cache.region_prefix=optimistic_locking",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartServiceImpl.class, BookServiceImpl.class, ReservationServiceImpl.class, ConflictRetryAspect.class,
+        CartStore.class, BookCache.class, BookSearchIndex.class, BookSuggestIndex.class})
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OptimisticLockingTest {
+    private static final int WRITERS = 8;
+    private static final int CLICKS_PER_WRITER = 10;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void parallelQuantityClicks_noneLost() throws Exception {
+        Long[] ids = seed(1_000);
+        cartService.addTooCart(ids[0], ids[1]);
+        Long cartId = cartRepo.findLinesByUserId(ids[0]).get(0).getCartId();
+
+        runInParallel(() -> cartService.updateQuantityInCartAdd(ids[0], cartId));
+
+        Cart line = cartRepo.findById(cartId).get();
+        assertEquals(1 + WRITERS * CLICKS_PER_WRITER, line.getCartQuantity());
+        assertEquals(WRITERS * CLICKS_PER_WRITER, line.getVersion());
+    }
+
+    @Test
+    void parallelBookEdits_allApplied() throws Exception {
+        Long bookId = seed(10)[1];
+        AtomicInteger quantities = new AtomicInteger(100);
+
+        // Every edit sets a different quantity, an unchanged row would not be written at all
+        runInParallel(() -> {
+            DtoToBookEntity update = new DtoToBookEntity();
+            update.setBookPrice(25.0);
+            update.setBookQuantity(quantities.incrementAndGet());
+            bookService.updateBook(bookId, update);
+        });
+
+        Book book = bookRepo.findById(bookId).get();
+        assertEquals(WRITERS * CLICKS_PER_WRITER, book.getVersion());
+        assertEquals(25.0, book.getBookPrice());
+    }
+
+    @Test
+    void bulkUpdates_failStaleEntityWrites() {
+        Long[] ids = seed(50);
+        cartService.addTooCart(ids[0], ids[1]);
+        Cart staleLine = cartRepo.findLinesByUserId(ids[0]).stream().findFirst()
+                .flatMap(line -> cartRepo.findById(line.getCartId())).get();
+        Book staleBook = bookRepo.findById(ids[1]).get();
+
+        cartRepo.incrementQuantity(ids[0], ids[1], 1, 20.0, 50);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> bookRepo.decrementStock(Map.of(ids[1], 5)));
+
+        staleLine.setCartQuantity(10);
+        staleBook.setBookQuantity(100);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartRepo.save(staleLine));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookRepo.save(staleBook));
+        assertEquals(2, cartRepo.findById(staleLine.getCartId()).get().getCartQuantity());
+        assertEquals(45, bookRepo.findById(ids[1]).get().getBookQuantity());
+    }
+
+    private void runInParallel(Runnable write) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int click = 0; click < CLICKS_PER_WRITER; click++) {
+                    write.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private Long[] seed(int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("writer" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+
+            Book book = new Book();
+            book.setBookName("Contended Book");
+            book.setBookPrice(20.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+            return new Long[]{user.getUserId(), book.getBookId()};
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.Order;
+import com.example.entity.OrderItem;
+import com.example.entity.User;
+import com.example.repo.CartRepo;
+import com.example.repo.OrderItemRepo;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * With sequence IDs and JDBC batching, placing an order and clearing a cart cost the same number of
+ * statements whether the cart holds one line or twenty, and a batch of orders costs the same as two.
+ * Sequence calls are left out: one refills a pool every 50 IDs, and which run hits one depends on what ran before.
+ */
+@DataJpaTest(properties = {
+        // Statistics count every session, the scheduled jobs must not run queries in the middle of a measurement
+        "bookstore.outbox.poll-interval-ms=3600000",
+        "bookstore.stock-hold.sweep-interval-ms=3600000"
+})
+@Import({OrderServiceImpl.class, OutboxServiceImpl.class, BookCache.class, CartStore.class, ReservationServiceImpl.class,
+        OrderPlacementStatementCountTest.SequenceCallsConfig.class})
+class OrderPlacementStatementCountTest {
+    private static final int LARGE_CART = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SequenceCalls sequenceCalls;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void placeOrder_statementCountDoesNotGrowWithCartLines() {
+        Long smallCartUser = seedCart(1);
+        Long largeCartUser = seedCart(LARGE_CART);
+
+        long small = statementsFor(() -> orderService.placeOrder(smallCartUser, new DtoToAddressEntity()));
+        long large = statementsFor(() -> orderService.placeOrder(largeCartUser, new DtoToAddressEntity()));
+
+        assertEquals(small, large, "placeOrder statements: 1 line = " + small + ", " + LARGE_CART + " lines = " + large);
+    }
+
+    @Test
+    void placeOrders_statementCountDoesNotGrowWithBatchSize() {
+        // Warms up the ID pools, so neither measured run includes the sequence calls that fill them
+        orderService.placeOrders(addresses(1));
+        Map<Long, DtoToAddressEntity> two = addresses(2);
+        Map<Long, DtoToAddressEntity> many = addresses(LARGE_CART);
+
+        long small = statementsFor(() -> orderService.placeOrders(two));
+        long large = statementsFor(() -> orderService.placeOrders(many));
+
+        assertEquals(small, large, "placeOrders statements: 2 orders = " + small + ", " + LARGE_CART + " orders = " + large);
+    }
+
+    @Test
+    void placeOrder_keepsItsLinesWithoutReadingThemBack() {
+        Long userId = seedCart(3);
+        entityManager.flush();
+
+        Order order = orderService.placeOrder(userId, new DtoToAddressEntity());
+        // The managed order holds the inserted lines, flushing must not take them for unsaved ones
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, order.getItems().size());
+        assertTrue(order.getItems().stream().allMatch(item -> item.getOrderItemId() != null));
+        assertEquals(order.getItems().stream().map(OrderItem::getOrderItemId).sorted().toList(),
+                orderItemRepo.findByOrderId(order.getOrderId()).stream().map(OrderItem::getOrderItemId).sorted().toList());
+    }
+
+    @Test
+    void orderedCartLinesGoOutInOneStatement() {
+        Long userId = seedCart(LARGE_CART);
+        List<Long> cartIds = cartRepo.findAllByUserIdWithBook(userId).stream().map(Cart::getCartId).toList();
+        entityManager.flush();
+        statistics.clear();
+
+        assertEquals(LARGE_CART, cartRepo.deleteAllByCartIdInAndUserId(cartIds, userId));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long statementsFor(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        long sequenceCallsBefore = sequenceCalls.count.get();
+        action.run();
+        entityManager.flush();
+        return statistics.getPrepareStatementCount() - (sequenceCalls.count.get() - sequenceCallsBefore);
+    }
+
+    private Map<Long, DtoToAddressEntity> addresses(int buyers) {
+        Map<Long, DtoToAddressEntity> addresses = new LinkedHashMap<>();
+        for (int i = 0; i < buyers; i++) {
+            addresses.put(seedCart(2), new DtoToAddressEntity());
+        }
+        return addresses;
+    }
+
+    private Long seedCart(int lines) {
+        User user = new User();
+        user.setEmail("buyer" + System.nanoTime() + "@example.com");
+        user.setRole("USER");
+        entityManager.persist(user);
+        for (int i = 0; i < lines; i++) {
+            Book book = new Book();
+            book.setBookName("Book " + i);
+            book.setBookPrice(10.0 + i);
+            book.setBookQuantity(100);
+            entityManager.persist(book);
+
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(1);
+            cart.setTotalPrice(book.getBookPrice());
+            entityManager.persist(cart);
+        }
+        return user.getUserId();
+    }
+
+    // Counts the sequence calls Hibernate makes to refill an ID pool
+    static class SequenceCalls implements StatementInspector {
+        final AtomicLong count = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("next value for")) {
+                count.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+
+    @TestConfiguration
+    static class SequenceCallsConfig {
+        @Bean
+        SequenceCalls sequenceCalls() {
+            return new SequenceCalls();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sequenceCallsInspector(SequenceCalls sequenceCalls) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sequenceCalls);
+        }
+    }
+}
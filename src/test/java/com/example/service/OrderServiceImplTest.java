@@ -1,8 +1,16 @@
 package com.example.service;
 
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
 import com.example.dto.DtoToAddressEntity;
+import com.example.dto.OrderFilterDto;
+import com.example.dto.OrderPageDto;
+import com.example.dto.OrderSummaryDto;
 import com.example.entity.*;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
 import com.example.repo.CartRepo;
+import com.example.repo.OrderItemRepo;
 import com.example.repo.OrderRepo;
 import com.example.repo.UserRepo;
 import com.example.serviceImpl.OrderServiceImpl;
@@ -11,9 +19,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +40,24 @@ class OrderServiceImplTest {
     @Mock
     private CartRepo cartRepo;
 
+    @Mock
+    private BookRepo bookRepo;
+
+    @Mock
+    private BookCache bookCache;
+
+    @Mock
+    private OrderItemRepo orderItemRepo;
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -47,9 +75,12 @@ class OrderServiceImplTest {
         mockUser.setUserId(1L);
 
         mockBook = new Book();
+        mockBook.setBookId(10L);
+        mockBook.setBookName("Clean Code");
         mockBook.setBookPrice(100.0);
 
         mockCart = new Cart();
+        mockCart.setCartId(100L);
         mockCart.setBook(mockBook);
         mockCart.setCartQuantity(2);
         mockCart.setUser(mockUser);
@@ -72,16 +103,49 @@ class OrderServiceImplTest {
     @Test
     void testPlaceOrder_HappyPath() {
         when(userRepo.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(cartRepo.findByUser(mockUser)).thenReturn(List.of(mockCart));
+        when(cartRepo.findAllByUserIdWithBook(1L)).thenReturn(List.of(mockCart));
+        when(cartRepo.deleteAllByCartIdInAndUserId(List.of(100L), 1L)).thenReturn(1);
 
         Order savedOrder = orderService.placeOrder(1L, dtoAddress);
 
         assertEquals(mockUser, savedOrder.getUser());
         assertEquals(200.0, savedOrder.getOrderPrice()); // 100 * 2
-        assertEquals(1, savedOrder.getOrderQuantity());
+        assertEquals(2, savedOrder.getOrderQuantity());
         assertNotNull(savedOrder.getAddress());
-        verify(orderRepo, times(1)).save(any(Order.class));
-        verify(cartRepo, times(1)).deleteAll(anyList());
+        assertEquals(1, savedOrder.getItems().size());
+        OrderItem item = savedOrder.getItems().get(0);
+        assertEquals(10L, item.getBookId());
+        assertEquals("Clean Code", item.getBookName());
+        assertEquals(2, item.getQuantity());
+        assertEquals(100.0, item.getUnitPrice());
+        verify(orderRepo, times(1)).saveAndFlush(any(Order.class));
+        verify(orderItemRepo, times(1)).insertAll(any(), anyList());
+        verify(cartRepo, times(1)).deleteAllByCartIdInAndUserId(List.of(100L), 1L);
+        verify(bookRepo, times(1)).decrementStock(Map.of(10L, 2));
+        verify(outboxService, times(1)).orderPlaced(savedOrder);
+    }
+
+    @Test
+    void testPlaceOrder_OutOfStock_ThrowsAndSavesNothing() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(cartRepo.findAllByUserIdWithBook(1L)).thenReturn(List.of(mockCart));
+        when(bookRepo.decrementStock(Map.of(10L, 2))).thenReturn(List.of(10L));
+
+        assertThrows(CustomiseException.class, () -> orderService.placeOrder(1L, dtoAddress));
+
+        verify(orderRepo, never()).saveAndFlush(any(Order.class));
+        verify(orderItemRepo, never()).insertAll(any(), anyList());
+        verify(cartRepo, never()).deleteAllByCartIdInAndUserId(anyList(), any());
+        verify(outboxService, never()).orderPlaced(any());
+    }
+
+    @Test
+    void testPlaceOrder_CartLineRemovedMeanwhile_Throws() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(cartRepo.findAllByUserIdWithBook(1L)).thenReturn(List.of(mockCart));
+        when(cartRepo.deleteAllByCartIdInAndUserId(List.of(100L), 1L)).thenReturn(0);
+
+        assertThrows(CustomiseException.class, () -> orderService.placeOrder(1L, dtoAddress));
     }
 
     // -------- cancelOrder --------
@@ -117,6 +181,7 @@ class OrderServiceImplTest {
         String result = orderService.cancelOrder(1L, 2L);
 
         assertEquals("NOT Eligible to CANCEL the Order!!", result);
+        verify(outboxService, never()).orderCancelled(any());
     }
 
     @Test
@@ -131,28 +196,54 @@ class OrderServiceImplTest {
         assertEquals("Order Cancel Successfully with ID : 2", result);
         assertTrue(mockOrder.getCancelOrder());
         verify(orderRepo, times(1)).save(mockOrder);
+        verify(outboxService, times(1)).orderCancelled(mockOrder);
     }
 
     // -------- getAllOrders --------
     @Test
     void testGetAllOrders_NoOrders() {
-        Order cancelledOrder = new Order();
-        cancelledOrder.setCancelOrder(true);
+        when(orderRepo.findSummariesBefore(eq(Long.MAX_VALUE), eq(false), isNull(), isNull(), isNull(), any(Limit.class)))
+                .thenReturn(List.of());
 
-        when(orderRepo.findAll()).thenReturn(List.of(cancelledOrder));
-
-        Object result = orderService.getAllOrders(1L);
+        Object result = orderService.getAllOrders(new OrderFilterDto());
 
         assertEquals("No Order Is Present!!", result);
     }
 
     @Test
     void testGetAllOrders_WithOrders() {
-        when(orderRepo.findAll()).thenReturn(List.of(mockOrder));
+        when(orderRepo.findSummariesBefore(eq(Long.MAX_VALUE), eq(false), isNull(), isNull(), isNull(), eq(Limit.of(51))))
+                .thenReturn(List.of(summary(5L)));
+
+        Object result = orderService.getAllOrders(new OrderFilterDto());
+
+        assertTrue(result instanceof OrderPageDto);
+        assertEquals(1, ((OrderPageDto) result).getOrders().size());
+        assertNull(((OrderPageDto) result).getNextCursor());
+    }
 
-        Object result = orderService.getAllOrders(1L);
+    @Test
+    void testGetAllOrders_PassesFiltersAndReturnsCursor() {
+        OrderFilterDto filter = new OrderFilterDto("cancelled", 1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), 100L, 2);
+        when(orderRepo.findSummariesBefore(100L, true, 1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), Limit.of(3)))
+                .thenReturn(List.of(summary(9L), summary(8L), summary(7L)));
+
+        OrderPageDto page = (OrderPageDto) orderService.getAllOrders(filter);
+
+        assertEquals(2, page.getOrders().size());
+        assertEquals(8L, page.getNextCursor());
+    }
+
+    @Test
+    void testGetAllOrders_InvalidStatus() {
+        OrderFilterDto filter = new OrderFilterDto();
+        filter.setStatus("SHIPPED");
+
+        assertThrows(CustomiseException.class, () -> orderService.getAllOrders(filter));
+        verifyNoInteractions(orderRepo);
+    }
 
-        assertTrue(result instanceof List);
-        assertEquals(1, ((List<?>) result).size());
+    private OrderSummaryDto summary(Long orderId) {
+        return new OrderSummaryDto(orderId, LocalDate.now(), 100.0, 1, false, 1L);
     }
 }
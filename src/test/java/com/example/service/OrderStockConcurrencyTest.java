@@ -0,0 +1,198 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.Order;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.repo.CartRepo;
+import com.example.repo.OrderItemRepo;
+import com.example.repo.OrderRepo;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 500 buyers race for a book with 100 units, exactly 100 orders may go through and stock must end at zero.
+ * A batch of orders that runs a book out leaves out only the orders that cannot be served.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order_stock;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImpl.class, OutboxServiceImpl.class, BookCache.class, CartStore.class, ReservationServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStockConcurrencyTest {
+    private static final int BUYERS = 500;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CartRepo cartRepo;
+
+    @Autowired
+    private OrderRepo orderRepo;
+
+    @Autowired
+    private OrderItemRepo orderItemRepo;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from OrderItem").executeUpdate();
+            entityManager.createQuery("delete from OutboxEvent").executeUpdate();
+            entityManager.createQuery("delete from Order").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        List<Long> buyers = new ArrayList<>();
+        Long bookId = new TransactionTemplate(transactionManager).execute(status -> {
+            Book book = new Book();
+            book.setBookName("Limited Edition");
+            book.setBookPrice(25.0);
+            book.setBookQuantity(STOCK);
+            entityManager.persist(book);
+            for (int i = 0; i < BUYERS; i++) {
+                User user = new User();
+                user.setEmail("buyer" + i + "@example.com");
+                user.setRole("USER");
+                entityManager.persist(user);
+
+                Cart cart = new Cart();
+                cart.setUser(user);
+                cart.setBook(book);
+                cart.setCartQuantity(1);
+                cart.setTotalPrice(book.getBookPrice());
+                entityManager.persist(cart);
+                buyers.add(user.getUserId());
+            }
+            return book.getBookId();
+        });
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : buyers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(userId, new DtoToAddressEntity());
+                    placed.incrementAndGet();
+                } catch (CustomiseException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, placed.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0, bookRepo.findById(bookId).get().getBookQuantity());
+        assertEquals(STOCK, orderRepo.count());
+        assertEquals(STOCK, orderItemRepo.count());
+        // Rejected orders rolled back completely, their carts are still there
+        assertEquals(BUYERS - STOCK, cartRepo.count());
+    }
+
+    @Test
+    void batchThatRunsOut_placesTheOrdersItCanServe() {
+        Long scarce = seedBook("Signed Copy", 3);
+        Long plenty = seedBook("Paperback", 10);
+        Long first = seedBuyer(scarce, 2, plenty, 1);
+        Long second = seedBuyer(scarce, 2, plenty, 1);
+        Long third = seedBuyer(plenty, 1);
+        Map<Long, DtoToAddressEntity> addresses = new LinkedHashMap<>();
+        for (Long userId : List.of(first, second, third)) {
+            addresses.put(userId, new DtoToAddressEntity());
+        }
+
+        Map<Long, Order> orders = orderService.placeOrders(addresses);
+
+        assertEquals(List.of(first, third), List.copyOf(orders.keySet()));
+        assertEquals(1, bookRepo.findById(scarce).get().getBookQuantity());
+        assertEquals(8, bookRepo.findById(plenty).get().getBookQuantity());
+        assertEquals(2, orderRepo.count());
+        // The order left out took nothing, its cart is still there
+        assertEquals(2, cartRepo.count());
+    }
+
+    private Long seedBook(String name, int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Book book = new Book();
+            book.setBookName(name);
+            book.setBookPrice(25.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+            return book.getBookId();
+        });
+    }
+
+    // Alternating book IDs and quantities
+    private Long seedBuyer(long... lines) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("batch" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+            for (int i = 0; i < lines.length; i += 2) {
+                Book book = entityManager.find(Book.class, lines[i]);
+                Cart cart = new Cart();
+                cart.setUser(user);
+                cart.setBook(book);
+                cart.setCartQuantity((int) lines[i + 1]);
+                cart.setTotalPrice(book.getBookPrice() * lines[i + 1]);
+                entityManager.persist(cart);
+            }
+            return user.getUserId();
+        });
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.OutboxEvent;
+import com.example.entity.User;
+import com.example.event.OrderEventHandler;
+import com.example.exception.CustomiseException;
+import com.example.repo.OutboxEventRepo;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Order changes leave an outbox event exactly when they commit, and the relay hands each due event to its handlers
+ * once, retrying failures later without holding up the rest.
+ */
+@DataJpaTest(properties = {
+        // The scheduled relay stays out of the way, the tests call it themselves
+        "bookstore.outbox.poll-interval-ms=3600000",
+        "bookstore.outbox.batch-size=2",
+        "bookstore.outbox.max-attempts=2",
+        "bookstore.outbox.initial-backoff=1h",
+        "bookstore.outbox.max-backoff=2h",
+        "spring.jpa.show-sql=false"
+})
+@Import({OrderServiceImpl.class, OutboxServiceImpl.class, ReservationServiceImpl.class, CartStore.class, BookCache.class,
+        OutboxServiceImplTest.RecordingHandler.class, OutboxServiceImplTest.InventorySync.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxServiceImplTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepo outboxEventRepo;
+
+    @Autowired
+    private RecordingHandler handler;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        handler.handled.clear();
+        handler.failing.clear();
+        handler.failingInTransaction.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from OutboxEvent").executeUpdate();
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from OrderItem").executeUpdate();
+            entityManager.createQuery("delete from Order").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void placeAndCancel_writeEventsWithTheOrder() {
+        Long userId = seedCart(5, 1);
+        Long orderId = orderService.placeOrder(userId, new DtoToAddressEntity()).getOrderId();
+        orderService.cancelOrder(userId, orderId);
+
+        List<OutboxEvent> events = outboxEventRepo.findAll();
+        assertEquals(List.of(OutboxEvent.ORDER_PLACED, OutboxEvent.ORDER_CANCELLED), events.stream().map(OutboxEvent::getEventType).toList());
+        assertTrue(events.stream().allMatch(event -> event.getOrderId().equals(orderId)));
+        assertTrue(events.get(0).getPayload().contains("\"userId\":" + userId));
+    }
+
+    @Test
+    void rolledBackOrder_leavesNoEvent() {
+        Long userId = seedCart(1, 2);
+
+        assertThrows(CustomiseException.class, () -> orderService.placeOrder(userId, new DtoToAddressEntity()));
+
+        assertEquals(0, outboxEventRepo.count());
+    }
+
+    @Test
+    void relay_dispatchesEveryEventOnceAndDeletesIt() {
+        for (int i = 0; i < 5; i++) {
+            orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity());
+        }
+
+        // Batches of two, the relay keeps claiming until the table is drained
+        assertEquals(5, outboxService.relay());
+
+        assertEquals(5, handler.handled.size());
+        assertEquals(5, Set.copyOf(handler.handled).size());
+        assertEquals(0, outboxEventRepo.count());
+        assertEquals(0, outboxService.relay());
+    }
+
+    @Test
+    void failingEvent_isRetriedLaterThenParked() {
+        Long good = orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity()).getOrderId();
+        Long bad = orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity()).getOrderId();
+        handler.failing.add(bad);
+
+        outboxService.relay();
+
+        assertEquals(List.of(good), handler.handled);
+        OutboxEvent retried = outboxEventRepo.findAll().get(0);
+        assertEquals(bad, retried.getOrderId());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getAvailableAt().isAfter(LocalDateTime.now().plusMinutes(59)));
+        assertTrue(retried.getLastError().contains("mail server down"));
+
+        // Not due yet
+        assertEquals(0, outboxService.relay());
+        retried.setAvailableAt(LocalDateTime.now().minusSeconds(1));
+        outboxEventRepo.save(retried);
+
+        outboxService.relay();
+        OutboxEvent parked = outboxEventRepo.findAll().get(0);
+        assertEquals(OutboxEvent.FAILED, parked.getStatus());
+        assertEquals(2, parked.getAttempts());
+        assertEquals(0, outboxService.relay());
+    }
+
+    @Test
+    void handlerFailingInItsOwnTransaction_isRetriedLater() {
+        Long good = orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity()).getOrderId();
+        Long bad = orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity()).getOrderId();
+        handler.failingInTransaction.add(bad);
+
+        assertEquals(2, outboxService.relay());
+
+        assertEquals(List.of(good), handler.handled);
+        OutboxEvent retried = outboxEventRepo.findAll().get(0);
+        assertEquals(bad, retried.getOrderId());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getLastError().contains("inventory out of sync"));
+        assertEquals(1, outboxEventRepo.count());
+    }
+
+    @Test
+    void claimedEvents_areSkippedByAnotherRelay() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            orderService.placeOrder(seedCart(5, 1), new DtoToAddressEntity());
+        }
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+        Future<List<Long>> held = otherInstance.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = outboxEventRepo.claimDue(LocalDateTime.now(), 2).stream().map(OutboxEvent::getOrderId).toList();
+            claimed.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ids;
+        }));
+        assertTrue(claimed.await(10, TimeUnit.SECONDS));
+
+        outboxService.relay();
+        release.countDown();
+
+        List<Long> heldByOther = held.get(10, TimeUnit.SECONDS);
+        otherInstance.shutdown();
+        assertEquals(2, handler.handled.size());
+        assertTrue(handler.handled.stream().noneMatch(heldByOther::contains));
+        assertEquals(2, outboxEventRepo.count());
+    }
+
+    private Long seedCart(int stock, int quantity) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("outbox" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+
+            Book book = new Book();
+            book.setBookName("Outbox Book");
+            book.setBookPrice(12.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(book);
+            cart.setCartQuantity(quantity);
+            cart.setTotalPrice(quantity * 12.0);
+            entityManager.persist(cart);
+            return user.getUserId();
+        });
+    }
+
+    // Records the orders it was handed, throws for the orders in failing and fails the inventory sync of failingInTransaction
+    static class RecordingHandler implements OrderEventHandler {
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final Set<Long> failing = ConcurrentHashMap.newKeySet();
+        final Set<Long> failingInTransaction = ConcurrentHashMap.newKeySet();
+
+        @Autowired
+        private InventorySync inventorySync;
+
+        @Override
+        public boolean supports(String eventType) {
+            return OutboxEvent.ORDER_PLACED.equals(eventType);
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (failing.contains(event.getOrderId())) {
+                throw new IllegalStateException("mail server down");
+            }
+            if (failingInTransaction.contains(event.getOrderId())) {
+                inventorySync.sync(event.getOrderId());
+            }
+            handled.add(event.getOrderId());
+        }
+    }
+
+    // A transactional service a handler calls, its failure rolls back its own transaction
+    static class InventorySync {
+        @Transactional
+        public void sync(Long orderId) {
+            throw new IllegalStateException("inventory out of sync for order " + orderId);
+        }
+    }
+}
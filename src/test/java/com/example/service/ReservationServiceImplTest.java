@@ -0,0 +1,176 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.StockHold;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.repo.StockHoldRepo;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.CartServiceImpl;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stock held by one cart is not available to another until it is released, ordered or expires.
+ */
+@DataJpaTest(properties = {
+        "bookstore.stock-hold.sweep-batch-size=2",
+        "spring.jpa.show-sql=false"
+})
+@Import({CartServiceImpl.class, OrderServiceImpl.class, OutboxServiceImpl.class, ReservationServiceImpl.class, CartStore.class, BookCache.class, BookSuggestIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationServiceImplTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockHoldRepo stockHoldRepo;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from OrderItem").executeUpdate();
+            entityManager.createQuery("delete from OutboxEvent").executeUpdate();
+            entityManager.createQuery("delete from Order").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void heldStock_isNotAvailableToOthers() {
+        Long bookId = seedBook(3);
+        Long alice = seedUser();
+        Long bob = seedUser();
+
+        cartService.addTooCart(alice, bookId);
+        cartService.addTooCart(alice, bookId);
+        cartService.addTooCart(bob, bookId);
+
+        CustomiseException exception = assertThrows(CustomiseException.class, () -> cartService.addTooCart(bob, bookId));
+        assertEquals("Book NOT Available in Requested Quantity!! Available : 1", exception.getMessage());
+        assertEquals(2, stockHoldRepo.findByUserIdAndBookId(alice, bookId).get().getQuantity());
+        assertEquals(1, stockHoldRepo.findByUserIdAndBookId(bob, bookId).get().getQuantity());
+
+        // Emptying a cart hands its units back
+        cartService.removeByUserID(alice);
+        cartService.addTooCart(bob, bookId);
+        assertEquals(2, stockHoldRepo.findByUserIdAndBookId(bob, bookId).get().getQuantity());
+    }
+
+    @Test
+    void expiredHolds_countForNothingAndAreSwept() {
+        Long bookId = seedBook(2);
+        Long alice = seedUser();
+        for (int i = 0; i < 5; i++) {
+            expiredHold(seedUser(), bookId, 2);
+        }
+
+        reservationService.hold(alice, bookId, 2);
+
+        assertEquals(5, reservationService.sweepExpired());
+        assertEquals(1, stockHoldRepo.count());
+        assertEquals(0, reservationService.sweepExpired());
+    }
+
+    @Test
+    void placeOrder_releasesOwnHoldsAndRespectsOthers() {
+        Long bookId = seedBook(3);
+        Long alice = seedUser();
+        Long bob = seedUser();
+
+        cartService.addTooCart(alice, bookId);
+        cartService.addTooCart(alice, bookId);
+        // Bob's line is written past the hold check, as one left over from before holds were switched on
+        Long bobCartId = seedCartLine(bob, bookId, 2);
+
+        assertEquals(2, orderService.placeOrder(alice, new DtoToAddressEntity()).getOrderQuantity());
+        assertFalse(stockHoldRepo.findByUserIdAndBookId(alice, bookId).isPresent());
+        assertEquals(1, bookRepo.findById(bookId).get().getBookQuantity());
+
+        reservationService.hold(seedUser(), bookId, 1);
+        assertThrows(CustomiseException.class, () -> orderService.placeOrder(bob, new DtoToAddressEntity()));
+        assertEquals(1, bookRepo.findById(bookId).get().getBookQuantity());
+        assertTrue(entityManager.find(Cart.class, bobCartId) != null);
+    }
+
+    private Long seedBook(int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Book book = new Book();
+            book.setBookName("Held Book");
+            book.setBookPrice(10.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+            return book.getBookId();
+        });
+    }
+
+    private Long seedUser() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("holder" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+            return user.getUserId();
+        });
+    }
+
+    private Long seedCartLine(Long userId, Long bookId, int quantity) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Cart cart = new Cart();
+            cart.setUser(entityManager.getReference(User.class, userId));
+            cart.setBook(entityManager.getReference(Book.class, bookId));
+            cart.setCartQuantity(quantity);
+            cart.setTotalPrice(quantity * 10.0);
+            entityManager.persist(cart);
+            return cart.getCartId();
+        });
+    }
+
+    private void expiredHold(Long userId, Long bookId, int quantity) {
+        StockHold hold = new StockHold();
+        hold.setUserId(userId);
+        hold.setBookId(bookId);
+        hold.setQuantity(quantity);
+        hold.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        stockHoldRepo.save(hold);
+    }
+}
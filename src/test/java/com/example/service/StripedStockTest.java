@@ -0,0 +1,251 @@
+package com.example.service;
+
+import com.example.cache.BookCache;
+import com.example.cache.CartStore;
+import com.example.dto.DtoToAddressEntity;
+import com.example.entity.Book;
+import com.example.entity.Cart;
+import com.example.entity.User;
+import com.example.exception.CustomiseException;
+import com.example.repo.BookRepo;
+import com.example.repo.StockHoldRepo;
+import com.example.search.BookSearchIndex;
+import com.example.search.BookSuggestIndex;
+import com.example.serviceImpl.BookServiceImpl;
+import com.example.serviceImpl.OrderServiceImpl;
+import com.example.serviceImpl.OutboxServiceImpl;
+import com.example.serviceImpl.ReservationServiceImpl;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A striped book sells from its stripe rows: many buyers at once never take more than the stock,
+ * and switching striping on and off keeps the quantity.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:striped_stock;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.cache.region_prefix=striped_stock",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImpl.class, OutboxServiceImpl.class, BookServiceImpl.class, ReservationServiceImpl.class, CartStore.class,
+        BookCache.class, BookSearchIndex.class, BookSuggestIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StripedStockTest {
+    private static final int BUYERS = 64;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookRepo bookRepo;
+
+    @Autowired
+    private StockHoldRepo stockHoldRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("delete from StockHold").executeUpdate();
+            entityManager.createQuery("delete from StockStripe").executeUpdate();
+            entityManager.createQuery("delete from OrderItem").executeUpdate();
+            entityManager.createQuery("delete from OutboxEvent").executeUpdate();
+            entityManager.createQuery("delete from Order").executeUpdate();
+            entityManager.createQuery("delete from Cart").executeUpdate();
+            entityManager.createQuery("delete from Book").executeUpdate();
+            entityManager.createQuery("delete from User").executeUpdate();
+        });
+    }
+
+    @Test
+    void stripingOnAndOff_keepsTheStock() {
+        Long bookId = seedBook(10);
+
+        assertEquals("Stock of Book " + bookId + " Split Over 3 Stripes", bookService.updateStockStripes(bookId, 3));
+        assertEquals(List.of(4, 3, 3), stripes(bookId));
+        assertEquals(3, bookRepo.findById(bookId).get().getStockStripes());
+
+        bookService.updateStockStripes(bookId, 0);
+        Book book = bookRepo.findById(bookId).get();
+        assertEquals(10, book.getBookQuantity());
+        assertEquals(0, book.getStockStripes());
+        assertTrue(stripes(bookId).isEmpty());
+    }
+
+    @Test
+    void parallelBuyers_neverOversell() throws Exception {
+        int stock = 50;
+        Long bookId = seedBook(stock);
+        bookService.updateStockStripes(bookId, 8);
+        List<Long> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(seedCartLine(bookId, 1));
+        }
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long buyer : buyers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(buyer, new DtoToAddressEntity());
+                    sold.incrementAndGet();
+                } catch (CustomiseException e) {
+                    soldOut.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(stock, sold.get());
+        assertEquals(BUYERS - stock, soldOut.get());
+        assertEquals(0, stripes(bookId).stream().mapToInt(Integer::intValue).sum());
+        // Checkouts leave BOOK_TBL alone, the refresh catches the shown quantity up
+        bookService.refreshStripedStock();
+        assertEquals(0, bookRepo.findById(bookId).get().getBookQuantity());
+    }
+
+    @Test
+    void restripingDuringCheckouts_putsNoSoldUnitsBack() throws Exception {
+        int stock = 50;
+        Long bookId = seedBook(stock);
+        bookService.updateStockStripes(bookId, 8);
+        List<Long> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(seedCartLine(bookId, 1));
+        }
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicBoolean buying = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Integer> restriper = pool.submit(() -> {
+            start.await();
+            int[] counts = {0, 4, 8, 2};
+            int toggles = 0;
+            while (buying.get()) {
+                bookService.updateStockStripes(bookId, counts[toggles++ % counts.length]);
+            }
+            return toggles;
+        });
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long buyer : buyers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    orderService.placeOrder(buyer, new DtoToAddressEntity());
+                    sold.incrementAndGet();
+                } catch (CustomiseException e) {
+                    // sold out, or the stripes it read were replaced under it
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        buying.set(false);
+        assertTrue(restriper.get(60, TimeUnit.SECONDS) > 0);
+        pool.shutdown();
+
+        bookService.updateStockStripes(bookId, 0);
+        assertEquals(stock, sold.get() + bookRepo.findById(bookId).get().getBookQuantity(),
+                "sold " + sold.get() + " of " + stock);
+    }
+
+    @Test
+    void orderLargerThanAnyStripe_takesFromSeveral() {
+        Long bookId = seedBook(6);
+        bookService.updateStockStripes(bookId, 3);
+
+        assertEquals(5, orderService.placeOrder(seedCartLine(bookId, 5), new DtoToAddressEntity()).getOrderQuantity());
+        assertEquals(1, stripes(bookId).stream().mapToInt(Integer::intValue).sum());
+        assertThrows(CustomiseException.class, () -> orderService.placeOrder(seedCartLine(bookId, 2), new DtoToAddressEntity()));
+        assertEquals(1, stripes(bookId).stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void stripedBooks_takeNoHolds() {
+        Long bookId = seedBook(5);
+        bookService.updateStockStripes(bookId, 2);
+
+        reservationService.hold(1L, bookId, 5);
+        reservationService.hold(2L, bookId, 5);
+
+        assertEquals(0, stockHoldRepo.count());
+    }
+
+    private List<Integer> stripes(Long bookId) {
+        return jdbcTemplate.queryForList("select quantity from BOOK_STOCK_STRIPE_TBL where book_id = ? order by stripe_no", Integer.class, bookId);
+    }
+
+    private Long seedBook(int stock) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Book book = new Book();
+            book.setBookName("Launch Title");
+            book.setBookPrice(15.0);
+            book.setBookQuantity(stock);
+            entityManager.persist(book);
+            return book.getBookId();
+        });
+    }
+
+    private Long seedCartLine(Long bookId, int quantity) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = new User();
+            user.setEmail("buyer" + System.nanoTime() + "@example.com");
+            user.setRole("USER");
+            entityManager.persist(user);
+
+            Cart cart = new Cart();
+            cart.setUser(user);
+            cart.setBook(entityManager.find(Book.class, bookId));
+            cart.setCartQuantity(quantity);
+            cart.setTotalPrice(quantity * 15.0);
+            entityManager.persist(cart);
+            return user.getUserId();
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.utils;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenUtilityTest {
+
+    private final TokenUtility tokenUtility = new TokenUtility(true, 100);
+
+    @Test
+    void testVerify_ReturnsClaims() {
+        String token = tokenUtility.createToken(7L, "ADMIN");
+
+        TokenPrincipal principal = tokenUtility.verify(token);
+
+        assertEquals(7L, principal.userId());
+        assertEquals("ADMIN", principal.role());
+        assertTrue(principal.expiresAt().after(new Date()));
+        assertEquals(7L, tokenUtility.getEmpIdFromToken(token));
+        assertEquals("ADMIN", tokenUtility.getRoleFromToken(token));
+    }
+
+    @Test
+    void testVerify_RepeatTokenServedFromCache() {
+        String token = tokenUtility.createToken(7L, "USER");
+
+        assertSame(tokenUtility.verify(token), tokenUtility.verify(token));
+    }
+
+    @Test
+    void testVerify_CacheDisabledStillVerifies() {
+        TokenUtility uncached = new TokenUtility(false, 0);
+        String token = uncached.createToken(3L, "USER");
+
+        assertEquals(3L, uncached.verify(token).userId());
+        assertThrows(JWTVerificationException.class, () -> uncached.verify(token + "x"));
+    }
+
+    @Test
+    void testVerify_TamperedTokenRejected() {
+        String token = tokenUtility.createToken(7L, "USER");
+        String forged = JWT.create().withClaim("userId", 7L).withClaim("role", "ADMIN")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000)).sign(Algorithm.HMAC256("OtherKey"));
+
+        tokenUtility.verify(token);
+
+        assertThrows(JWTVerificationException.class, () -> tokenUtility.verify(forged));
+        assertThrows(JWTVerificationException.class, () -> tokenUtility.verify(token.substring(0, token.length() - 2)));
+    }
+
+    @Test
+    void testVerify_ExpiredTokenRejected() {
+        String expired = JWT.create().withClaim("userId", 7L).withClaim("role", "USER")
+                .withExpiresAt(new Date(System.currentTimeMillis() - 1_000)).sign(Algorithm.HMAC256("SecretKey"));
+
+        assertThrows(JWTVerificationException.class, () -> tokenUtility.verify(expired));
+    }
+}